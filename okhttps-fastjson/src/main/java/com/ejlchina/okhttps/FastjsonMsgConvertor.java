@@ -1,13 +1,28 @@
 package com.ejlchina.okhttps;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.annotation.JSONType;
+import com.alibaba.fastjson.parser.DefaultJSONParser;
+import com.alibaba.fastjson.parser.JSONLexer;
+import com.alibaba.fastjson.parser.JSONReaderScanner;
+import com.alibaba.fastjson.parser.JSONToken;
+import com.alibaba.fastjson.parser.deserializer.ObjectDeserializer;
+import com.alibaba.fastjson.serializer.SerializeConfig;
+import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.ejlchina.okhttps.internal.HttpException;
 import okio.Okio;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class FastjsonMsgConvertor implements MsgConvertor, ConvertProvider {
 
@@ -39,6 +54,21 @@ public class FastjsonMsgConvertor implements MsgConvertor, ConvertProvider {
 		return JSON.toJSONString(object).getBytes(charset);
 	}
 
+	@Override
+	public void serialize(Object object, String dateFormat, Charset charset, OutputStream out) throws IOException {
+		if (dateFormat != null) {
+			JSON.writeJSONString(out, charset, object, SerializeConfig.globalInstance, null, dateFormat,
+					JSON.DEFAULT_GENERATE_FEATURE, SerializerFeature.WriteDateUseDateFormat);
+		} else {
+			JSON.writeJSONString(out, charset, object);
+		}
+	}
+
+	@Override
+	public boolean supportsStreaming() {
+		return true;
+	}
+
 	@Override
 	public <T> T toBean(Class<T> type, InputStream in, Charset charset) {
 		return JSON.parseObject(toString(in, charset), type);
@@ -49,11 +79,100 @@ public class FastjsonMsgConvertor implements MsgConvertor, ConvertProvider {
 		return JSON.parseArray(toString(in, charset), type);
 	}
 
+	@Override
+	public <T> CloseableIterator<T> toIterator(Class<T> type, InputStream in, Charset charset) {
+		Reader source = new InputStreamReader(in, charset);
+		JSONReader reader = new JSONReader(source);
+		try {
+			// 与其它转换器一致，null 与空报文视为空数组
+			int token = reader.peek();
+			if (token == JSONToken.NULL || token == JSONToken.EOF) {
+				closeQuietly(reader, source);
+				return CloseableIterator.empty();
+			}
+			reader.startArray();
+		} catch (RuntimeException e) {
+			closeQuietly(reader, source);
+			throw e;
+		}
+		return new CloseableIterator<T>() {
+
+			boolean closed = false;
+
+			@Override
+			public boolean hasNext() {
+				if (closed) {
+					return false;
+				}
+				try {
+					if (reader.hasNext()) {
+						return true;
+					}
+					reader.endArray();
+				} catch (RuntimeException e) {
+					close();
+					throw e;
+				}
+				close();
+				return false;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				try {
+					return reader.readObject(type);
+				} catch (RuntimeException e) {
+					close();
+					throw e;
+				}
+			}
+
+			@Override
+			public void close() {
+				if (!closed) {
+					closed = true;
+					closeQuietly(reader, source);
+				}
+			}
+
+		};
+	}
+
+	@Override
+	public void extract(InputStream in, Charset charset, JsonPath.Target<?>... targets) {
+		Reader source = new InputStreamReader(in, charset);
+		JSONLexer lexer = new JSONReaderScanner(source);
+		JSONReader reader = new JSONReader(lexer);
+		try {
+			if (reader.peek() != JSONToken.EOF) {
+				JsonPath.extract(new FastjsonCursor(reader, lexer), targets);
+			}
+		} catch (IOException e) {
+			throw new HttpException("Fastjson 解析异常", e);
+		} finally {
+			closeQuietly(reader, source);
+		}
+	}
+
 	@Override
 	public MsgConvertor getConvertor() {
 		return new FastjsonMsgConvertor();
 	}
 
+	// 未读完时 JSONReader.close() 会抛出异常，此时直接关闭底层的输入流
+	private static void closeQuietly(JSONReader reader, Reader source) {
+		try {
+			reader.close();
+		} catch (RuntimeException e) {
+			try {
+				source.close();
+			} catch (IOException ignore) {}
+		}
+	}
+
 	private String toString(InputStream in, Charset charset) {
 		try {
 			return Okio.buffer(Okio.source(in)).readString(charset);
@@ -62,4 +181,115 @@ public class FastjsonMsgConvertor implements MsgConvertor, ConvertProvider {
 		}
 	}
 
+	// JSONReader 没有跳过值的方法，不需要的子树只能读取后丢弃
+	static class FastjsonCursor implements JsonPath.Cursor {
+
+		private final JSONReader reader;
+		private final JSONLexer lexer;
+
+		FastjsonCursor(JSONReader reader, JSONLexer lexer) {
+			this.reader = reader;
+			this.lexer = lexer;
+		}
+
+		@Override
+		public Kind peek() {
+			int token = lexer.token();
+			// 冒号与逗号要等读取值时才被消费，此时根据其后的字符判断值的类型
+			if (token == JSONToken.COLON || token == JSONToken.COMMA) {
+				lexer.skipWhitespace();
+				char c = lexer.getCurrent();
+				if (c == '{') {
+					return Kind.OBJECT;
+				}
+				if (c == '[') {
+					return Kind.ARRAY;
+				}
+				return Kind.VALUE;
+			}
+			if (token == JSONToken.LBRACE) {
+				return Kind.OBJECT;
+			}
+			if (token == JSONToken.LBRACKET) {
+				return Kind.ARRAY;
+			}
+			return Kind.VALUE;
+		}
+
+		@Override
+		public void beginObject() {
+			reader.startObject();
+		}
+
+		@Override
+		public void endObject() {
+			reader.endObject();
+		}
+
+		@Override
+		public void beginArray() {
+			reader.startArray();
+		}
+
+		@Override
+		public void endArray() {
+			reader.endArray();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return reader.hasNext();
+		}
+
+		@Override
+		public String nextName() {
+			return reader.readString();
+		}
+
+		@Override
+		public void skipValue() {
+			// 由 JSONReader 维护上下文，跳过的值交给 Skipper 在词法层面逐个丢弃
+			reader.readObject(Skipped.class);
+		}
+
+		@Override
+		public <T> T read(Class<T> type) {
+			return reader.readObject(type);
+		}
+
+	}
+
+	@JSONType(deserializer = Skipper.class)
+	static class Skipped {}
+
+	/**
+	 * 按括号深度跳过一个值，不构建任何对象
+	 */
+	public static class Skipper implements ObjectDeserializer {
+
+		@Override
+		public <T> T deserialze(DefaultJSONParser parser, Type type, Object fieldName) {
+			JSONLexer lexer = parser.lexer;
+			int depth = 0;
+			do {
+				int token = lexer.token();
+				if (token == JSONToken.LBRACE || token == JSONToken.LBRACKET) {
+					depth++;
+				} else if (token == JSONToken.RBRACE || token == JSONToken.RBRACKET) {
+					depth--;
+				} else if (token == JSONToken.EOF) {
+					throw new JSONException("报文不完整：" + lexer.info());
+				}
+				lexer.nextToken();
+			} while (depth > 0);
+			return null;
+		}
+
+		@Override
+		public int getFastMatchToken() {
+			return 0;
+		}
+
+	}
+
 }
@@ -1,8 +1,13 @@
 package com.ejlchina.okhttps;
 
 import com.ejlchina.okhttps.test.MsgConvertorTest;
+import com.alibaba.fastjson.annotation.JSONField;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
 
 public class TestCase {
 
@@ -13,5 +18,38 @@ public class TestCase {
 		new MsgConvertorTest(msgConvertor).run();
 	}
 
-    
+	public static class Account {
+
+		private String userName = "Jack";
+
+		@JSONField(name = "user_name")
+		public String getUserName() {
+			return userName;
+		}
+
+	}
+
+	@Test
+	public void testFormRename() {
+		MsgConvertor msgConvertor = new MsgConvertor.FormConvertor(new FastjsonMsgConvertor());
+		byte[] data = msgConvertor.serialize(new Account(), StandardCharsets.UTF_8);
+		Assert.assertEquals("user_name=Jack", new String(data, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUrlParaRename() {
+		// addUrlPara(Object) 与表单请求体使用相同的参数名
+		String query = new MsgConvertorTest(new FastjsonMsgConvertor()).urlQuery(new Account());
+		Assert.assertEquals("user_name=Jack", query);
+	}
+
+	@Test
+	public void testSkipWithoutParsing() {
+		// 被跳过的子树只在词法层面丢弃，不会触发 @type 等对象解析逻辑
+		String json = "{\"skipped\":{\"@type\":\"com.example.Unknown\",\"a\":[1,{\"b\":null}]},\"total\":3}";
+		JsonPath.Target<Integer> total = new JsonPath.Target<>(JsonPath.compile("total"), Integer.class, true);
+		new FastjsonMsgConvertor().extract(new ByteArrayInputStream(json.getBytes()), StandardCharsets.UTF_8, total);
+		Assert.assertEquals(Integer.valueOf(3), total.getValue());
+	}
+
 }
@@ -1,16 +1,26 @@
 package com.ejlchina.okhttps;
 
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 public class GsonMsgConvertor implements MsgConvertor, ConvertProvider {
 
@@ -46,11 +56,30 @@ public class GsonMsgConvertor implements MsgConvertor, ConvertProvider {
 
 	@Override
 	public byte[] serialize(Object object, String dateFormat, Charset charset) {
-		Gson gson = this.gson;
+		return gson(dateFormat).toJson(object).getBytes(charset);
+	}
+
+	@Override
+	public void serialize(Object object, String dateFormat, Charset charset, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out, charset);
+		try {
+			gson(dateFormat).toJson(object, writer);
+		} catch (JsonIOException e) {
+			throw new IOException("Gson 序列化异常", e);
+		}
+		writer.flush();
+	}
+
+	@Override
+	public boolean supportsStreaming() {
+		return true;
+	}
+
+	private Gson gson(String dateFormat) {
 		if (dateFormat != null) {
-			gson = gson.newBuilder().setDateFormat(dateFormat).create();
+			return gson.newBuilder().setDateFormat(dateFormat).create();
 		}
-		return gson.toJson(object).getBytes(charset);
+		return gson;
 	}
 
 	@Override
@@ -66,6 +95,22 @@ public class GsonMsgConvertor implements MsgConvertor, ConvertProvider {
 		return list;
 	}
 
+	@Override
+	public <T> CloseableIterator<T> toIterator(Class<T> type, InputStream in, Charset charset) {
+		return new GsonIterator<>(gson, type, new JsonReader(new InputStreamReader(in, charset)));
+	}
+
+	@Override
+	public void extract(InputStream in, Charset charset, JsonPath.Target<?>... targets) {
+		try (JsonReader reader = new JsonReader(new InputStreamReader(in, charset))) {
+			if (reader.peek() != JsonToken.END_DOCUMENT) {
+				JsonPath.extract(new GsonCursor(gson, reader), targets);
+			}
+		} catch (IOException e) {
+			throw new JsonIOException("Gson 解析异常", e);
+		}
+	}
+
 	@Override
 	public MsgConvertor getConvertor() {
 		return new GsonMsgConvertor();
@@ -79,18 +124,140 @@ public class GsonMsgConvertor implements MsgConvertor, ConvertProvider {
 		this.gson = gson;
 	}
 
-}
+	static class GsonIterator<T> implements CloseableIterator<T> {
 
+		private final Gson gson;
+		private final Class<T> type;
+		private final JsonReader reader;
+		private boolean started = false;
+		private boolean closed = false;
 
+		GsonIterator(Gson gson, Class<T> type, JsonReader reader) {
+			this.gson = gson;
+			this.type = type;
+			this.reader = reader;
+		}
 
+		@Override
+		public boolean hasNext() {
+			if (closed) {
+				return false;
+			}
+			try {
+				if (!started) {
+					started = true;
+					JsonToken token;
+					try {
+						token = reader.peek();
+					} catch (EOFException e) {
+						// 空报文
+						token = JsonToken.END_DOCUMENT;
+					}
+					if (token == JsonToken.NULL || token == JsonToken.END_DOCUMENT) {
+						close();
+						return false;
+					}
+					reader.beginArray();
+				}
+				if (reader.hasNext()) {
+					return true;
+				}
+				reader.endArray();
+			} catch (IOException | RuntimeException e) {
+				close();
+				throw new JsonParseException("Gson 解析异常", e);
+			}
+			close();
+			return false;
+		}
 
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			try {
+				return gson.fromJson(reader, type);
+			} catch (RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
 
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				try {
+					reader.close();
+				} catch (IOException ignore) {}
+			}
+		}
+
+	}
+
+	static class GsonCursor implements JsonPath.Cursor {
+
+		private final Gson gson;
+		private final JsonReader reader;
+
+		GsonCursor(Gson gson, JsonReader reader) {
+			this.gson = gson;
+			this.reader = reader;
+		}
+
+		@Override
+		public Kind peek() throws IOException {
+			JsonToken token = reader.peek();
+			if (token == JsonToken.BEGIN_OBJECT) {
+				return Kind.OBJECT;
+			}
+			if (token == JsonToken.BEGIN_ARRAY) {
+				return Kind.ARRAY;
+			}
+			return Kind.VALUE;
+		}
+
+		@Override
+		public void beginObject() throws IOException {
+			reader.beginObject();
+		}
 
+		@Override
+		public void endObject() throws IOException {
+			reader.endObject();
+		}
 
+		@Override
+		public void beginArray() throws IOException {
+			reader.beginArray();
+		}
 
+		@Override
+		public void endArray() throws IOException {
+			reader.endArray();
+		}
 
+		@Override
+		public boolean hasNext() throws IOException {
+			return reader.hasNext();
+		}
 
+		@Override
+		public String nextName() throws IOException {
+			return reader.nextName();
+		}
 
+		@Override
+		public void skipValue() throws IOException {
+			reader.skipValue();
+		}
 
+		@Override
+		public <T> T read(Class<T> type) {
+			return gson.fromJson(reader, type);
+		}
 
+	}
 
+}
@@ -1,8 +1,12 @@
 package com.ejlchina.okhttps;
 
 import com.ejlchina.okhttps.test.MsgConvertorTest;
+import com.google.gson.annotations.SerializedName;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 
 public class TestCase {
 
@@ -11,5 +15,26 @@ public class TestCase {
 		MsgConvertor msgConvertor = new GsonMsgConvertor();
 		new MsgConvertorTest(msgConvertor).run();
 	}
-    
+
+	static class Account {
+
+		@SerializedName("user_name")
+		private String userName = "Jack";
+
+	}
+
+	@Test
+	public void testFormRename() {
+		MsgConvertor msgConvertor = new MsgConvertor.FormConvertor(new GsonMsgConvertor());
+		byte[] data = msgConvertor.serialize(new Account(), StandardCharsets.UTF_8);
+		Assert.assertEquals("user_name=Jack", new String(data, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUrlParaRename() {
+		// addUrlPara(Object) 与表单请求体使用相同的参数名
+		String query = new MsgConvertorTest(new GsonMsgConvertor()).urlQuery(new Account());
+		Assert.assertEquals("user_name=Jack", query);
+	}
+
 }
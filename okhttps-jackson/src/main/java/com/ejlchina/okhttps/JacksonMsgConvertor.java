@@ -1,15 +1,23 @@
 package com.ejlchina.okhttps;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.ejlchina.okhttps.internal.HttpException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -72,18 +80,40 @@ public class JacksonMsgConvertor implements MsgConvertor, ConvertProvider {
 
 	@Override
 	public byte[] serialize(Object object, String dateFormat, Charset charset) {
-		ObjectMapper mapper = objectMapper;
-		if (dateFormat != null) {
-			mapper = mapper.copy().configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
-					.setDateFormat(new SimpleDateFormat(dateFormat));
-		}
 		try {
-			return mapper.writeValueAsString(object).getBytes(charset);
+			return mapper(dateFormat).writeValueAsString(object).getBytes(charset);
 		} catch (JsonProcessingException e) {
 			throw new HttpException("Java Bean [" + object + "] Jackson 序列化异常", e);
 		}
 	}
 
+	@Override
+	public void serialize(Object object, String dateFormat, Charset charset, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out, charset);
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		try {
+			mapper(dateFormat).writeValue(generator, object);
+		} catch (JsonProcessingException e) {
+			// 与写出失败区分开，序列化失败不应被重试
+			throw new SerializeException("Jackson 序列化异常", e);
+		}
+		writer.flush();
+	}
+
+	@Override
+	public boolean supportsStreaming() {
+		return true;
+	}
+
+	private ObjectMapper mapper(String dateFormat) {
+		if (dateFormat != null) {
+			return objectMapper.copy().configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+					.setDateFormat(new SimpleDateFormat(dateFormat));
+		}
+		return objectMapper;
+	}
+
 	@Override
 	public <T> T toBean(Class<T> type, InputStream in, Charset charset) {
 		try {
@@ -103,6 +133,86 @@ public class JacksonMsgConvertor implements MsgConvertor, ConvertProvider {
 		}
 	}
 
+	@Override
+	public <T> CloseableIterator<T> toIterator(Class<T> type, InputStream in, Charset charset) {
+		JsonParser parser;
+		try {
+			parser = objectMapper.getFactory().createParser(in);
+		} catch (IOException e) {
+			closeQuietly(in);
+			throw new HttpException("Jackson 解析异常", e);
+		}
+		MappingIterator<T> iterator;
+		try {
+			JsonToken token = parser.nextToken();
+			// 根节点为数组时逐个读取其元素
+			if (token == JsonToken.START_ARRAY) {
+				token = parser.nextToken();
+			}
+			// 与其它转换器一致，空数组、null 与空报文都得到空的迭代器
+			if (token == null || token == JsonToken.VALUE_NULL || token == JsonToken.END_ARRAY) {
+				parser.close();
+				return CloseableIterator.empty();
+			}
+			iterator = objectMapper.readerFor(type).readValues(parser);
+		} catch (IOException e) {
+			closeQuietly(parser);
+			throw new HttpException("Jackson 解析异常", e);
+		}
+		return new CloseableIterator<T>() {
+
+			@Override
+			public boolean hasNext() {
+				try {
+					if (iterator.hasNextValue()) {
+						return true;
+					}
+					// 读完后关闭解析器及输入流
+					close();
+					return false;
+				} catch (IOException e) {
+					close();
+					throw new HttpException("Jackson 解析异常", e);
+				}
+			}
+
+			@Override
+			public T next() {
+				try {
+					return iterator.nextValue();
+				} catch (IOException e) {
+					close();
+					throw new HttpException("Jackson 解析异常", e);
+				}
+			}
+
+			@Override
+			public void close() {
+				// 解析器由本方法创建，MappingIterator 不会关闭它
+				closeQuietly(iterator);
+				closeQuietly(parser);
+			}
+
+		};
+	}
+
+	@Override
+	public void extract(InputStream in, Charset charset, JsonPath.Target<?>... targets) {
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != null) {
+				JsonPath.extract(new JacksonCursor(objectMapper, parser), targets);
+			}
+		} catch (IOException e) {
+			throw new HttpException("Jackson 解析异常", e);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException ignore) {}
+	}
+
 	@Override
 	public MsgConvertor getConvertor() {
 		return new JacksonMsgConvertor();
@@ -116,4 +226,75 @@ public class JacksonMsgConvertor implements MsgConvertor, ConvertProvider {
 		this.objectMapper = objectMapper;
 	}
 
+	// 解析器的当前 token 始终是下一个待读取的值
+	static class JacksonCursor implements JsonPath.Cursor {
+
+		private final ObjectMapper objectMapper;
+		private final JsonParser parser;
+
+		JacksonCursor(ObjectMapper objectMapper, JsonParser parser) {
+			this.objectMapper = objectMapper;
+			this.parser = parser;
+		}
+
+		@Override
+		public Kind peek() {
+			JsonToken token = parser.currentToken();
+			if (token == JsonToken.START_OBJECT) {
+				return Kind.OBJECT;
+			}
+			if (token == JsonToken.START_ARRAY) {
+				return Kind.ARRAY;
+			}
+			return Kind.VALUE;
+		}
+
+		@Override
+		public void beginObject() throws IOException {
+			parser.nextToken();
+		}
+
+		@Override
+		public void endObject() throws IOException {
+			parser.nextToken();
+		}
+
+		@Override
+		public void beginArray() throws IOException {
+			parser.nextToken();
+		}
+
+		@Override
+		public void endArray() throws IOException {
+			parser.nextToken();
+		}
+
+		@Override
+		public boolean hasNext() {
+			JsonToken token = parser.currentToken();
+			return token != null && token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY;
+		}
+
+		@Override
+		public String nextName() throws IOException {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			return name;
+		}
+
+		@Override
+		public void skipValue() throws IOException {
+			parser.skipChildren();
+			parser.nextToken();
+		}
+
+		@Override
+		public <T> T read(Class<T> type) throws IOException {
+			T value = objectMapper.readValue(parser, type);
+			parser.nextToken();
+			return value;
+		}
+
+	}
+
 }
@@ -1,8 +1,12 @@
 package com.ejlchina.okhttps;
 
 import com.ejlchina.okhttps.test.MsgConvertorTest;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 
 public class TestCase {
 
@@ -11,5 +15,30 @@ public class TestCase {
 		MsgConvertor msgConvertor = new JacksonMsgConvertor();
 		new MsgConvertorTest(msgConvertor).run();
 	}
-    
+
+	public static class Account {
+
+		private final String userName = "Jack";
+
+		@JsonProperty("user_name")
+		public String getUserName() {
+			return userName;
+		}
+
+	}
+
+	@Test
+	public void testFormRename() {
+		MsgConvertor msgConvertor = new MsgConvertor.FormConvertor(new JacksonMsgConvertor());
+		byte[] data = msgConvertor.serialize(new Account(), StandardCharsets.UTF_8);
+		Assert.assertEquals("user_name=Jack", new String(data, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUrlParaRename() {
+		// addUrlPara(Object) 与表单请求体使用相同的参数名
+		String query = new MsgConvertorTest(new JacksonMsgConvertor()).urlQuery(new Account());
+		Assert.assertEquals("user_name=Jack", query);
+	}
+
 }
@@ -1,17 +1,30 @@
 package com.ejlchina.okhttps.test;
 
 import com.ejlchina.okhttps.Array;
+import com.ejlchina.okhttps.CloseableIterator;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.JsonPath;
 import com.ejlchina.okhttps.Mapper;
 import com.ejlchina.okhttps.MsgConvertor;
+import com.ejlchina.okhttps.internal.TreeCursor;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.junit.Assert;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 public class MsgConvertorTest {
@@ -27,8 +40,13 @@ public class MsgConvertorTest {
 		testToArray();
 		testSerialize();
 		testSerializeWithDateFormat();
+		testSerializeToStream();
+		testFormSerialize();
 		testToBean();
 		testToList();
+		testToIterator();
+		testExtract();
+		testTreeExtract();
 	}
 
 
@@ -69,6 +87,17 @@ public class MsgConvertorTest {
 	}
 	
 
+	void testSerializeToStream() throws IOException, ParseException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		msgConvertor.serialize(new User(1, "Jack"), null, StandardCharsets.UTF_8, out);
+		Assert.assertEquals("{\"id\":1,\"name\":\"Jack\"}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+		String dataFormat = "yyyy-MM-dd HH:mm:ss";
+		String date = "2020-05-09 12:30:15";
+		out.reset();
+		msgConvertor.serialize(new DateBean(1, new SimpleDateFormat(dataFormat).parse(date)), dataFormat, StandardCharsets.UTF_8, out);
+		Assert.assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains(date));
+	}
+
 	void testSerializeWithDateFormat() throws ParseException {
 		String dataFormat = "yyyy-MM-dd HH:mm:ss";
 		SimpleDateFormat sdf = new SimpleDateFormat(dataFormat);
@@ -78,6 +107,38 @@ public class MsgConvertorTest {
 		Assert.assertTrue(json.contains(date));
 	}
 
+	void testFormSerialize() throws ParseException {
+		String dataFormat = "yyyy-MM-dd HH:mm:ss";
+		SimpleDateFormat sdf = new SimpleDateFormat(dataFormat);
+		MsgConvertor formConvertor = new MsgConvertor.FormConvertor(msgConvertor);
+		// Java Bean 的属性与日期格式由被包装的转换器处理
+		byte[] data = formConvertor.serialize(new DateBean(1, sdf.parse("2020-05-09 12:30:15")), dataFormat, StandardCharsets.UTF_8);
+		String form = new String(data, StandardCharsets.UTF_8);
+		Assert.assertTrue(form.contains("id=1"));
+		Assert.assertTrue(form.contains("date=2020-05-09%2012%3A30%3A15"));
+	}
+
+	/**
+	 * 以该转换器构建 HTTP 实例，返回 addUrlPara(bean) 展开得到的查询串
+	 * @param bean Java Bean
+	 * @return 查询串
+	 */
+	public String urlQuery(Object bean) {
+		AtomicReference<String> query = new AtomicReference<>();
+		HTTP http = HTTP.builder()
+				.addMsgConvertor(new MsgConvertor.FormConvertor(msgConvertor))
+				.config((OkHttpClient.Builder builder) -> builder.addInterceptor((Interceptor.Chain chain) -> {
+					query.set(chain.request().url().encodedQuery());
+					return new Response.Builder().request(chain.request())
+							.protocol(Protocol.HTTP_1_1).code(200).message("OK")
+							.body(ResponseBody.create(null, ""))
+							.build();
+				}))
+				.build();
+		http.sync("http://localhost/query").addUrlPara(bean).get().close();
+		return query.get();
+	}
+
 	void testToBean() {
 		String json = "{\"id\":1,\"name\":\"Jack\"}";
 		InputStream in = new ByteArrayInputStream(json.getBytes());
@@ -98,5 +159,100 @@ public class MsgConvertorTest {
 		Assert.assertEquals(2, u2.getId());
 		Assert.assertEquals("Tom", u2.getName());
 	}
-    
+
+	void testToIterator() {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 1; i <= 1000; i++) {
+			if (i > 1) {
+				json.append(',');
+			}
+			json.append("{\"id\":").append(i).append(",\"name\":\"U").append(i).append("\"}");
+		}
+		json.append(']');
+		byte[] data = json.toString().getBytes(StandardCharsets.UTF_8);
+
+		ClosingStream in = new ClosingStream(data);
+		CloseableIterator<User> it = msgConvertor.toIterator(User.class, in, StandardCharsets.UTF_8);
+		int count = 0;
+		while (it.hasNext()) {
+			User user = it.next();
+			count++;
+			Assert.assertEquals(count, user.getId());
+			Assert.assertEquals("U" + count, user.getName());
+		}
+		Assert.assertEquals(1000, count);
+		Assert.assertTrue(in.closed);
+
+		// 提前放弃迭代
+		in = new ClosingStream(data);
+		it = msgConvertor.toIterator(User.class, in, StandardCharsets.UTF_8);
+		Assert.assertEquals(1, it.next().getId());
+		it.close();
+		Assert.assertTrue(in.closed);
+
+		// 空数组、null 与空报文都得到空的迭代器
+		for (String empty : new String[] {"[]", "null", " ", ""}) {
+			in = new ClosingStream(empty.getBytes(StandardCharsets.UTF_8));
+			it = msgConvertor.toIterator(User.class, in, StandardCharsets.UTF_8);
+			Assert.assertFalse(it.hasNext());
+			Assert.assertTrue(in.closed);
+		}
+	}
+
+	void testExtract() {
+		String json = "{\"code\":200,\"skipped\":{\"a\":[1,{\"b\":null}]},\"data\":{\"total\":3,\"skipped\":{\"id\":2,\"name\":\"Tom\"},"
+				+ "\"items\":[{\"id\":1,\"name\":\"Jack\"},{\"id\":2,\"name\":\"Tom\"},{\"id\":3,\"name\":\"Lucy\"}]},"
+				+ "\"tail\":\"not read";
+		byte[] data = json.getBytes(StandardCharsets.UTF_8);
+
+		// 所有目标满足后即停止读取，不会读到后面不完整的报文
+		JsonPath.Target<Integer> total = new JsonPath.Target<>(JsonPath.compile("data.total"), Integer.class, true);
+		JsonPath.Target<Integer> ids = new JsonPath.Target<>(JsonPath.compile("$.data.items[*].id"), Integer.class, false);
+		JsonPath.Target<User> second = new JsonPath.Target<>(JsonPath.compile("data.skipped"), User.class, true);
+		JsonPath.Target<String> missing = new JsonPath.Target<>(JsonPath.compile("data.none"), String.class, true);
+		ClosingStream in = new ClosingStream(data);
+		msgConvertor.extract(in, StandardCharsets.UTF_8, total, ids, second, missing);
+		Assert.assertEquals(Integer.valueOf(3), total.getValue());
+		Assert.assertEquals(3, ids.getValues().size());
+		Assert.assertEquals(Integer.valueOf(1), ids.getValues().get(0));
+		Assert.assertEquals(Integer.valueOf(3), ids.getValues().get(2));
+		Assert.assertEquals("Tom", second.getValue().getName());
+		Assert.assertNull(missing.getValue());
+		Assert.assertTrue(missing.isDone());
+		Assert.assertTrue(in.closed);
+
+		JsonPath.Target<String> name = new JsonPath.Target<>(JsonPath.compile("data.items[*].name"), String.class, true);
+		msgConvertor.extract(new ClosingStream(data), StandardCharsets.UTF_8, name);
+		Assert.assertEquals("Jack", name.getValue());
+		Assert.assertEquals(1, name.getValues().size());
+	}
+
+	void testTreeExtract() {
+		String json = "{\"data\":{\"total\":3,\"items\":[{\"id\":1,\"tags\":[\"a\"]},{\"id\":2,\"tags\":[]},{\"id\":3}]}}";
+		// 不支持流式解析时的默认实现：在完整解析得到的对象树上提取
+		Object tree = msgConvertor.toBean(Object.class, new ByteArrayInputStream(json.getBytes()), StandardCharsets.UTF_8);
+		JsonPath.Target<Integer> total = new JsonPath.Target<>(JsonPath.compile("data.total"), Integer.class, true);
+		Assert.assertEquals(Integer.valueOf(3), TreeCursor.extract(tree, total).getValue());
+		JsonPath.Target<Integer> ids = new JsonPath.Target<>(JsonPath.compile("data.items[*].id"), Integer.class, false);
+		Assert.assertEquals(Arrays.asList(1, 2, 3), TreeCursor.extract(tree, ids).getValues());
+		JsonPath.Target<String> tag = new JsonPath.Target<>(JsonPath.compile("data.items[0].tags[0]"), String.class, true);
+		Assert.assertEquals("a", TreeCursor.extract(tree, tag).getValue());
+	}
+
+	static class ClosingStream extends ByteArrayInputStream {
+
+		boolean closed = false;
+
+		ClosingStream(byte[] data) {
+			super(data);
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
+
+	}
+
 }
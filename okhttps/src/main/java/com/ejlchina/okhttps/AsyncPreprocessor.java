@@ -0,0 +1,20 @@
+package com.ejlchina.okhttps;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步预处理器
+ * 在HTTP请求任务正式开始之前执行，返回的 CompletionStage 正常完成后任务自动继续，
+ * 不需要也不应调用 {@link Preprocessor.PreChain#proceed()}，
+ * 异常完成或超过该阶段的期限时，任务将被取消
+ */
+public interface AsyncPreprocessor {
+
+	/**
+	 * 在HTTP请求开始之前执行
+	 * @param chain 预处理器链，用于获取当前任务与 HTTP 实例
+	 * @return 预处理阶段
+	 */
+	CompletionStage<?> process(Preprocessor.PreChain chain);
+
+}
@@ -0,0 +1,274 @@
+package com.ejlchina.okhttps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按主机熔断的熔断器
+ * 以最近 windowSize 个请求的失败率与慢调用率判断是否打开，打开后在 openMillis 内快速失败，
+ * 之后进入半开状态，最多放行 halfOpenCalls 个探测请求，探测结果决定关闭或再次打开
+ * @since 2.0.0
+ */
+public class CircuitBreaker {
+
+	/**
+	 * 熔断器状态
+	 */
+	public enum State {
+
+		/**
+		 * 关闭，正常放行
+		 */
+		CLOSED,
+
+		/**
+		 * 打开，快速失败
+		 */
+		OPEN,
+
+		/**
+		 * 半开，放行有限的探测请求
+		 */
+		HALF_OPEN
+
+	}
+
+	/**
+	 * 熔断器状态变化监听
+	 */
+	public interface OnStateChange {
+
+		/**
+		 * @param host 主机
+		 * @param from 原状态
+		 * @param to 新状态
+		 */
+		void on(String host, State from, State to);
+
+	}
+
+	private int windowSize = 100;
+	private int minCalls = 10;
+	private double failureRateThreshold = 0.5;
+	private double slowRateThreshold = 1;
+	private long slowCallNanos = Long.MAX_VALUE;
+	private long openNanos = TimeUnit.SECONDS.toNanos(30);
+	private int halfOpenCalls = 3;
+	private OnStateChange onStateChange;
+
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * 设置滑动窗口
+	 * @param windowSize 窗口大小（最近的请求数），默认 100
+	 * @param minCalls 计算比率所需的最少请求数，默认 10
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker window(int windowSize, int minCalls) {
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("windowSize 必须大于 0");
+		}
+		this.windowSize = windowSize;
+		this.minCalls = Math.max(1, Math.min(minCalls, windowSize));
+		return this;
+	}
+
+	/**
+	 * @param threshold 打开熔断器的失败率，默认 0.5
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker failureRate(double threshold) {
+		this.failureRateThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * @param threshold 打开熔断器的慢调用率
+	 * @param slowCallMillis 耗时达到该值的请求视为慢调用（毫秒）
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker slowCallRate(double threshold, long slowCallMillis) {
+		this.slowRateThreshold = threshold;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+		return this;
+	}
+
+	/**
+	 * @param openMillis 打开状态的持续时间（毫秒），默认 30 秒
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker openMillis(long openMillis) {
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+		return this;
+	}
+
+	/**
+	 * @param halfOpenCalls 半开状态下放行的探测请求数，默认 3
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker halfOpenCalls(int halfOpenCalls) {
+		this.halfOpenCalls = Math.max(1, halfOpenCalls);
+		return this;
+	}
+
+	/**
+	 * @param onStateChange 状态变化监听
+	 * @return CircuitBreaker
+	 */
+	public CircuitBreaker setOnStateChange(OnStateChange onStateChange) {
+		this.onStateChange = onStateChange;
+		return this;
+	}
+
+	/**
+	 * 申请放行一个请求，放行后必须以 {@link #onResult(String, long, boolean)}
+	 * 或 {@link #onIgnored(String)} 结束
+	 * @param host 主机
+	 * @return 是否放行
+	 */
+	public boolean tryAcquire(String host) {
+		return circuit(host).tryAcquire();
+	}
+
+	/**
+	 * 记录一个请求的结果
+	 * @param host 主机
+	 * @param nanos 耗时（纳秒）
+	 * @param failed 是否失败
+	 */
+	public void onResult(String host, long nanos, boolean failed) {
+		circuit(host).onResult(nanos >= slowCallNanos, failed);
+	}
+
+	/**
+	 * 放弃一个已放行的请求（如被取消），不计入统计
+	 * @param host 主机
+	 */
+	public void onIgnored(String host) {
+		circuit(host).onIgnored();
+	}
+
+	/**
+	 * @param host 主机
+	 * @return 该主机熔断器的状态
+	 */
+	public State getState(String host) {
+		return circuit(host).state;
+	}
+
+	private Circuit circuit(String host) {
+		return circuits.computeIfAbsent(host, Circuit::new);
+	}
+
+	class Circuit {
+
+		final String host;
+		// 每个元素的低位表示失败，次低位表示慢调用
+		final byte[] outcomes = new byte[windowSize];
+		int count;
+		int failures;
+		int slows;
+		volatile State state = State.CLOSED;
+		long openAt;
+		int permits;
+		int probes;
+		int probeFailures;
+		int probeSlows;
+
+		Circuit(String host) {
+			this.host = host;
+		}
+
+		boolean tryAcquire() {
+			State from;
+			synchronized (this) {
+				if (state == State.CLOSED) {
+					return true;
+				}
+				if (state == State.OPEN) {
+					if (System.nanoTime() - openAt < openNanos) {
+						return false;
+					}
+					from = transit(State.HALF_OPEN);
+				} else {
+					from = null;
+				}
+				if (permits >= halfOpenCalls) {
+					return false;
+				}
+				permits++;
+			}
+			notify(from, State.HALF_OPEN);
+			return true;
+		}
+
+		void onResult(boolean slow, boolean failed) {
+			State from = null, to = null;
+			synchronized (this) {
+				if (state == State.CLOSED) {
+					record(slow, failed);
+					if (count >= minCalls && exceeds(failures, slows, Math.min(count, windowSize))) {
+						from = transit(to = State.OPEN);
+					}
+				} else if (state == State.HALF_OPEN) {
+					probes++;
+					if (failed) probeFailures++;
+					if (slow) probeSlows++;
+					if (exceeds(probeFailures, probeSlows, halfOpenCalls)) {
+						from = transit(to = State.OPEN);
+					} else if (probes >= halfOpenCalls) {
+						from = transit(to = State.CLOSED);
+					}
+				}
+			}
+			notify(from, to);
+		}
+
+		synchronized void onIgnored() {
+			if (state == State.HALF_OPEN && permits > probes) {
+				permits--;
+			}
+		}
+
+		private boolean exceeds(int failures, int slows, int total) {
+			return failures >= failureRateThreshold * total
+					|| slows >= slowRateThreshold * total;
+		}
+
+		private void record(boolean slow, boolean failed) {
+			int index = count++ % windowSize;
+			if (count > windowSize) {
+				byte old = outcomes[index];
+				failures -= old & 1;
+				slows -= old >> 1;
+			}
+			byte outcome = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+			outcomes[index] = outcome;
+			failures += outcome & 1;
+			slows += outcome >> 1;
+		}
+
+		private State transit(State to) {
+			State from = state;
+			state = to;
+			permits = probes = probeFailures = probeSlows = 0;
+			if (to == State.OPEN) {
+				openAt = System.nanoTime();
+			}
+			if (to == State.CLOSED) {
+				count = failures = slows = 0;
+			}
+			return from;
+		}
+
+		private void notify(State from, State to) {
+			OnStateChange listener = onStateChange;
+			if (from != null && listener != null) {
+				listener.on(host, from, to);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.ejlchina.okhttps;
+
+import java.io.IOException;
+
+/**
+ * 熔断器打开时，请求被快速失败所抛出的异常
+ * @since 2.0.0
+ */
+public class CircuitOpenException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String host;
+
+	public CircuitOpenException(String host) {
+		super("熔断器已打开：" + host);
+		this.host = host;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.ejlchina.okhttps;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @since 2.0.0
+ * 可关闭的迭代器，用于逐个解析报文中的数组元素
+ * 迭代结束或解析出错时会自动关闭，提前放弃迭代时需手动调用 {@link #close()} 释放底层的响应
+ * @param <T> 元素泛型
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * 关闭迭代器及其底层的输入流
+	 */
+	@Override
+	void close();
+
+	/**
+	 * @param <T> 元素泛型
+	 * @return 空的迭代器，报文为 null 或为空时使用
+	 */
+	static <T> CloseableIterator<T> empty() {
+		return new CloseableIterator<T>() {
+
+			@Override
+			public boolean hasNext() {
+				return false;
+			}
+
+			@Override
+			public T next() {
+				throw new NoSuchElementException();
+			}
+
+			@Override
+			public void close() {}
+
+		};
+	}
+
+}
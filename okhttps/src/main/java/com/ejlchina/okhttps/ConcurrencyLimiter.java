@@ -0,0 +1,248 @@
+package com.ejlchina.okhttps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ejlchina.okhttps.internal.HashedWheelTimer;
+import com.ejlchina.okhttps.internal.TaskExecutor;
+
+/**
+ * 按主机的自适应并发限制器（AIMD）
+ * 请求成功时并发上限缓慢增加（每个上限窗口 +1），请求失败、被限流（429/503）或变慢时按比例减小；
+ * 超出上限的请求进入有界的等待队列，队列已满或等待超时的请求以 {@link HttpResult.State#REJECTED} 快速失败
+ * @since 2.0.0
+ */
+public class ConcurrencyLimiter {
+
+	private int initialLimit = 20;
+	private int minLimit = 1;
+	private int maxLimit = 200;
+	private double backoffRatio = 0.9;
+	private long slowCallNanos = Long.MAX_VALUE;
+	private int maxQueue = 100;
+	private long maxWaitMillis = 0;
+
+	private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * 设置并发上限
+	 * @param initial 初始上限，默认 20
+	 * @param min 最小上限，默认 1
+	 * @param max 最大上限，默认 200
+	 * @return ConcurrencyLimiter
+	 */
+	public ConcurrencyLimiter limit(int initial, int min, int max) {
+		if (min < 1 || min > max || initial < min || initial > max) {
+			throw new IllegalArgumentException("须满足 1 <= min <= initial <= max");
+		}
+		this.initialLimit = initial;
+		this.minLimit = min;
+		this.maxLimit = max;
+		return this;
+	}
+
+	/**
+	 * @param backoffRatio 请求失败或变慢时上限的缩小比例，默认 0.9
+	 * @return ConcurrencyLimiter
+	 */
+	public ConcurrencyLimiter backoffRatio(double backoffRatio) {
+		if (backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException("backoffRatio 必须在 (0, 1) 之间");
+		}
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+
+	/**
+	 * @param slowCallMillis 耗时达到该值的请求视为变慢（毫秒），默认不判断
+	 * @return ConcurrencyLimiter
+	 */
+	public ConcurrencyLimiter slowCallMillis(long slowCallMillis) {
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+		return this;
+	}
+
+	/**
+	 * 设置等待队列
+	 * @param maxQueue 每个主机的最大排队数，默认 100，为 0 时超出上限即拒绝
+	 * @param maxWaitMillis 最大排队时间（毫秒），默认 0 表示不限
+	 * @return ConcurrencyLimiter
+	 */
+	public ConcurrencyLimiter queue(int maxQueue, long maxWaitMillis) {
+		this.maxQueue = Math.max(maxQueue, 0);
+		this.maxWaitMillis = maxWaitMillis;
+		return this;
+	}
+
+	/**
+	 * 申请执行一个请求
+	 * @param host 主机
+	 * @param permit 许可，获得执行权时回调其 onAdmit，被拒绝时回调其 onReject
+	 * @param timer 用于排队超时的定时器
+	 * @param executor 用于执行排队超时的拒绝回调
+	 */
+	public void acquire(String host, Permit permit, HashedWheelTimer timer, TaskExecutor executor) {
+		host(host).acquire(permit, timer, executor);
+	}
+
+	/**
+	 * 放弃排队中的许可
+	 * @param host 主机
+	 * @param permit 许可
+	 * @return 是否在排队中并已移出队列
+	 */
+	public boolean abandon(String host, Permit permit) {
+		return host(host).abandon(permit);
+	}
+
+	/**
+	 * 归还执行权
+	 * @param host 主机
+	 * @param nanos 请求耗时（纳秒）
+	 * @param dropped 请求是否失败或被限流，为 null 表示不计入（如被取消）
+	 */
+	public void release(String host, long nanos, Boolean dropped) {
+		if (dropped != null && nanos >= slowCallNanos) {
+			dropped = true;
+		}
+		host(host).release(dropped);
+	}
+
+	/**
+	 * @param host 主机
+	 * @return 该主机当前的并发上限
+	 */
+	public int getLimit(String host) {
+		return (int) host(host).limit;
+	}
+
+	/**
+	 * @param host 主机
+	 * @return 该主机正在执行的请求数
+	 */
+	public int getInflight(String host) {
+		return host(host).inflight;
+	}
+
+	/**
+	 * @param host 主机
+	 * @return 该主机正在排队的请求数
+	 */
+	public int getQueued(String host) {
+		Host h = host(host);
+		synchronized (h) {
+			return h.queue.size();
+		}
+	}
+
+	/**
+	 * @return 被拒绝的请求总数
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	private Host host(String host) {
+		return hosts.computeIfAbsent(host, Host::new);
+	}
+
+	/**
+	 * 执行许可
+	 */
+	public static abstract class Permit {
+
+		HashedWheelTimer.Timeout timeout;
+
+		/**
+		 * 获得执行权
+		 */
+		protected abstract void onAdmit();
+
+		/**
+		 * 被拒绝
+		 * @param e 拒绝异常
+		 */
+		protected abstract void onReject(RejectedException e);
+
+	}
+
+	class Host {
+
+		final String name;
+		final ArrayDeque<Permit> queue = new ArrayDeque<>();
+		volatile double limit = initialLimit;
+		volatile int inflight;
+
+		Host(String name) {
+			this.name = name;
+		}
+
+		void acquire(Permit permit, HashedWheelTimer timer, TaskExecutor executor) {
+			boolean admit = false;
+			synchronized (this) {
+				if (inflight < (int) limit) {
+					inflight++;
+					admit = true;
+				} else if (queue.size() < maxQueue) {
+					queue.add(permit);
+					if (maxWaitMillis > 0) {
+						permit.timeout = timer.newTimeout(() -> {
+							// 拒绝回调会同步触发用户回调，不能占用计时器线程
+							if (abandon(permit)) {
+								executor.execute(() -> reject(permit, "等待超时"), true);
+							}
+						}, maxWaitMillis, TimeUnit.MILLISECONDS);
+					}
+					return;
+				}
+			}
+			if (admit) {
+				permit.onAdmit();
+			} else {
+				reject(permit, "等待队列已满");
+			}
+		}
+
+		synchronized boolean abandon(Permit permit) {
+			return queue.remove(permit);
+		}
+
+		void release(Boolean dropped) {
+			List<Permit> admitted = new ArrayList<>();
+			synchronized (this) {
+				inflight--;
+				if (dropped != null) {
+					if (dropped) {
+						limit = Math.max(minLimit, limit * backoffRatio);
+					} else if (inflight + 1 >= limit / 2) {
+						// 只有在上限被充分使用时才增加，避免空闲时无限增长
+						limit = Math.min(maxLimit, limit + 1 / limit);
+					}
+				}
+				while (inflight < (int) limit && !queue.isEmpty()) {
+					inflight++;
+					admitted.add(queue.poll());
+				}
+			}
+			for (Permit permit : admitted) {
+				if (permit.timeout != null) {
+					permit.timeout.cancel();
+				}
+				permit.onAdmit();
+			}
+		}
+
+		private void reject(Permit permit, String reason) {
+			rejected.incrementAndGet();
+			permit.onReject(new RejectedException("并发受限（" + reason + "）：" + name));
+		}
+
+	}
+
+}
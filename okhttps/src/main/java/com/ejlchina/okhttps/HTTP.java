@@ -6,10 +6,13 @@ import okhttp3.*;
 import okhttp3.WebSocket;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * HTTP 客户端接口
@@ -45,6 +48,25 @@ public interface HTTP {
      * @return WebSocket 任务
      */
     WebSocketTask webSocket(String url);
+
+    /**
+     * @since 2.0.0
+     * 批量请求，以限定的并发数执行一批异步请求
+     * @return 批量任务，默认并发数与 OkHttp 默认的每主机并发数相同
+     */
+    default BatchTask batch() {
+        return new BatchTask(this, 5);
+    }
+
+    /**
+     * @since 2.0.0
+     * 创建请求原型，冻结后可派生大量共享 URL 模板、请求头与请求体类型的任务
+     * @param url 请求地址
+     * @return 请求原型
+     */
+    default RequestPrototype prototype(String url) {
+        throw new HttpException(getClass().getName() + " 不支持请求原型！");
+    }
     
     /**
      * 根据标签取消HTTP任务，只要任务的标签包含指定的Tag就会被取消
@@ -142,6 +164,26 @@ public interface HTTP {
 
         private String bodyType = OkHttps.FORM;
 
+        private boolean virtualThreads = false;
+
+        private HedgePolicy hedgePolicy;
+
+        private TaskListener<HedgePolicy.Hedge> hedgeListener;
+
+        private RetryPolicy retryPolicy;
+
+        private CircuitBreaker circuitBreaker;
+
+        private ConcurrencyLimiter concurrencyLimiter;
+
+        private List<RateLimiter> rateLimiters;
+
+        private boolean coalesce = false;
+
+        private PriorityScheduler priorityScheduler;
+
+        private String deadlineHeader;
+
         public Builder() {
             mediaTypes = new HashMap<>();
             mediaTypes.put("*", "application/octet-stream");
@@ -160,6 +202,7 @@ public interface HTTP {
             mediaTypes.put("html", "text/html");
             preprocessors = new ArrayList<>();
             msgConvertors = new ArrayList<>();
+            rateLimiters = new ArrayList<>();
         }
 
         public Builder(HttpClient hc) {
@@ -178,6 +221,16 @@ public interface HTTP {
             this.preprocTimeoutTimes = hc.preprocTimeoutTimes();
             this.charset = hc.charset();
             this.bodyType = hc.bodyType();
+            this.hedgePolicy = hc.hedgePolicy();
+            this.hedgeListener = hc.hedgeListener();
+            this.retryPolicy = hc.retryPolicy();
+            this.circuitBreaker = hc.circuitBreaker();
+            this.concurrencyLimiter = hc.concurrencyLimiter();
+            this.rateLimiters = new ArrayList<>();
+            Collections.addAll(this.rateLimiters, hc.rateLimiters());
+            this.coalesce = hc.isCoalesce();
+            this.priorityScheduler = hc.priorityScheduler();
+            this.deadlineHeader = hc.deadlineHeader();
         }
 
         /**
@@ -254,18 +307,47 @@ public interface HTTP {
         }
 
         /**
-         * 添加预处理器
+         * 添加串行预处理器
+         * 若需合并执行或超时控制，可传入 {@link HttpClient.SerialPreprocessor} 实例
          *
          * @param preprocessor 预处理器
          * @return Builder
          */
         public Builder addSerialPreprocessor(Preprocessor preprocessor) {
-            if (preprocessor != null) {
+            if (preprocessor instanceof HttpClient.SerialPreprocessor) {
+                preprocessors.add(preprocessor);
+            } else if (preprocessor != null) {
                 preprocessors.add(new HttpClient.SerialPreprocessor(preprocessor));
             }
             return this;
         }
 
+        /**
+         * @since 2.0.0
+         * 添加异步预处理器，其返回的阶段完成后任务自动继续，不阻塞任何线程
+         *
+         * @param preprocessor 异步预处理器
+         * @return Builder
+         */
+        public Builder addAsyncPreprocessor(AsyncPreprocessor preprocessor) {
+            return addAsyncPreprocessor(preprocessor, 0);
+        }
+
+        /**
+         * @since 2.0.0
+         * 添加异步预处理器，其返回的阶段完成后任务自动继续，不阻塞任何线程
+         *
+         * @param preprocessor 异步预处理器
+         * @param deadlineMillis 该阶段的期限（毫秒），超过后任务被取消，小于等于 0 表示不限
+         * @return Builder
+         */
+        public Builder addAsyncPreprocessor(AsyncPreprocessor preprocessor, long deadlineMillis) {
+            if (preprocessor != null) {
+                preprocessors.add(new HttpClient.AsyncStagePreprocessor(preprocessor, deadlineMillis));
+            }
+            return this;
+        }
+
         /**
          * 最大预处理时间（倍数，相当普通请求的超时时间）
          *
@@ -362,11 +444,127 @@ public interface HTTP {
             return this;
         }
 
+        /**
+         * @since 2.0.0
+         * 使用虚拟线程（需 Java 21 及以上版本）
+         * OkHttp 的调度器与回调执行器都将使用每任务一个虚拟线程的执行器，
+         * 若已通过 {@link #callbackExecutor(Executor)} 设置了回调执行器，则回调执行器保持不变
+         *
+         * @return Builder
+         */
+        public Builder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置默认的对冲策略，只对 GET 与 HEAD 请求有效，
+         * 任务可通过 {@link HttpTask#hedge(HedgePolicy)} 单独设置
+         * @param policy 对冲策略
+         * @return Builder
+         */
+        public Builder hedgePolicy(HedgePolicy policy) {
+            this.hedgePolicy = policy;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置对冲监听，发送过对冲请求的任务完成时，以该主机的对冲统计回调
+         * @param listener 监听器（返回值无意义）
+         * @return Builder
+         */
+        public Builder hedgeListener(TaskListener<HedgePolicy.Hedge> listener) {
+            this.hedgeListener = listener;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置默认的重试策略，任务可通过 {@link HttpTask#retry(RetryPolicy)} 单独设置
+         * @param policy 重试策略
+         * @return Builder
+         */
+        public Builder retryPolicy(RetryPolicy policy) {
+            this.retryPolicy = policy;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置熔断器，按主机熔断，打开时请求以 {@link HttpResult.State#CIRCUIT_OPEN} 快速失败
+         * @param breaker 熔断器
+         * @return Builder
+         */
+        public Builder circuitBreaker(CircuitBreaker breaker) {
+            this.circuitBreaker = breaker;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置并发限制器，按主机自适应地限制并发，被拒绝的请求以 {@link HttpResult.State#REJECTED} 快速失败
+         * @param limiter 并发限制器
+         * @return Builder
+         */
+        public Builder concurrencyLimiter(ConcurrencyLimiter limiter) {
+            this.concurrencyLimiter = limiter;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 添加速率限制器，一个请求须同时满足所有适用的速率限制器
+         * @param rateLimiter 速率限制器
+         * @return Builder
+         */
+        public Builder addRateLimiter(RateLimiter rateLimiter) {
+            if (rateLimiter != null) {
+                this.rateLimiters.add(rateLimiter);
+            }
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 合并所有相同的进行中 GET 与 HEAD 请求，见 {@link HttpTask#coalesce()}
+         * @return Builder
+         */
+        public Builder coalesce() {
+            this.coalesce = true;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置优先级调度器，任务通过 {@link HttpTask#priority(int)} 指定优先级
+         * @param scheduler 优先级调度器
+         * @return Builder
+         */
+        public Builder priorityScheduler(PriorityScheduler scheduler) {
+            this.priorityScheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * @since 2.0.0
+         * 设置传递剩余时间的请求头，设置了截止时间的任务将以该请求头告知下游服务剩余的毫秒数
+         * 剩余时间在每次发出请求（包括重试与对冲）时计算，且该请求头不影响请求合并
+         * @param name 请求头名称，如 X-Request-Timeout
+         * @return Builder
+         */
+        public Builder deadlineHeader(String name) {
+            this.deadlineHeader = name;
+            return this;
+        }
+
         /**
          * 构建 HTTP 实例
          * @return HTTP
          */
         public HTTP build() {
+            ExecutorService executor = virtualThreads ? newVirtualThreadExecutor() : null;
             if (config != null || okClient == null) {
                 OkHttpClient.Builder builder = new OkHttpClient.Builder();
                 if (config != null) {
@@ -374,9 +572,44 @@ public interface HTTP {
                 }
                 okClient = builder.build();
             }
+            if (executor != null) {
+                okClient = okClient.newBuilder()
+                        .dispatcher(newDispatcher(executor, okClient.dispatcher()))
+                        .build();
+            }
+            if (deadlineHeader != null && okClient.interceptors().stream()
+                    .noneMatch(i -> i instanceof HttpTask.DeadlineInterceptor)) {
+                okClient = okClient.newBuilder()
+                        .addInterceptor(new HttpTask.DeadlineInterceptor())
+                        .build();
+            }
+            if (executor != null && mainExecutor == null) {
+                mainExecutor = executor;
+            }
             return new HttpClient(this);
         }
 
+        /**
+         * 创建使用指定执行器的调度器，并沿用原调度器的并发上限
+         */
+        private static Dispatcher newDispatcher(ExecutorService executor, Dispatcher origin) {
+            Dispatcher dispatcher = new Dispatcher(executor);
+            dispatcher.setMaxRequests(origin.getMaxRequests());
+            dispatcher.setMaxRequestsPerHost(origin.getMaxRequestsPerHost());
+            return dispatcher;
+        }
+
+        private static ExecutorService newVirtualThreadExecutor() {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) method.invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new HttpException("虚拟线程需要 Java 21 及以上版本！");
+            } catch (ReflectiveOperationException e) {
+                throw new HttpException("创建虚拟线程执行器失败", e);
+            }
+        }
+
         public OkHttpClient okClient() {
             return okClient;
         }
@@ -429,6 +662,42 @@ public interface HTTP {
             return bodyType;
         }
 
+        public HedgePolicy hedgePolicy() {
+            return hedgePolicy;
+        }
+
+        public TaskListener<HedgePolicy.Hedge> hedgeListener() {
+            return hedgeListener;
+        }
+
+        public RetryPolicy retryPolicy() {
+            return retryPolicy;
+        }
+
+        public CircuitBreaker circuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public ConcurrencyLimiter concurrencyLimiter() {
+            return concurrencyLimiter;
+        }
+
+        public RateLimiter[] rateLimiters() {
+            return rateLimiters.toArray(new RateLimiter[0]);
+        }
+
+        public boolean isCoalesce() {
+            return coalesce;
+        }
+
+        public PriorityScheduler priorityScheduler() {
+            return priorityScheduler;
+        }
+
+        public String deadlineHeader() {
+            return deadlineHeader;
+        }
+
     }
 
 }
@@ -0,0 +1,239 @@
+package com.ejlchina.okhttps;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对冲策略，只对幂等的 GET 与 HEAD 请求有效
+ * 请求在指定的延迟内未得到响应时，再发送一个相同的请求，先到的响应生效，另一个将被取消。
+ * 对冲请求受预算限制（默认最多额外增加 5% 的请求量），以免在故障时放大流量
+ * @since 2.0.0
+ */
+public class HedgePolicy {
+
+	// 每个主机保留的延迟样本数，须为 2 的幂
+	static final int SAMPLE_SIZE = 128;
+	// 按百分位计算延迟时，所需的最少样本数
+	static final int MIN_SAMPLES = 20;
+	// 预算令牌的上限（允许的突发对冲数）
+	static final double MAX_TOKENS = 10;
+
+	private long delayMillis = -1;
+	private double percentile = -1;
+	private long fallbackDelayMillis = -1;
+	private double budget = 0.05;
+
+	private final Map<String, HostStat> hostStats = new ConcurrentHashMap<>();
+
+	private HedgePolicy() { }
+
+	/**
+	 * 以固定延迟对冲
+	 * @param delayMillis 延迟（毫秒）
+	 * @return HedgePolicy
+	 */
+	public static HedgePolicy delay(long delayMillis) {
+		HedgePolicy policy = new HedgePolicy();
+		policy.delayMillis = delayMillis;
+		return policy;
+	}
+
+	/**
+	 * 以该主机近期响应耗时的百分位作为延迟对冲，样本不足时使用 {@link #fallbackDelay(long)}
+	 * @param percentile 百分位，如 0.95
+	 * @return HedgePolicy
+	 */
+	public static HedgePolicy percentile(double percentile) {
+		if (percentile <= 0 || percentile >= 1) {
+			throw new IllegalArgumentException("percentile 必须在 (0, 1) 之间");
+		}
+		HedgePolicy policy = new HedgePolicy();
+		policy.percentile = percentile;
+		return policy;
+	}
+
+	/**
+	 * 设置样本不足时的延迟，默认样本不足时不对冲
+	 * @param delayMillis 延迟（毫秒）
+	 * @return HedgePolicy
+	 */
+	public HedgePolicy fallbackDelay(long delayMillis) {
+		this.fallbackDelayMillis = delayMillis;
+		return this;
+	}
+
+	/**
+	 * 设置对冲预算，即对冲请求数与普通请求数的最大比例，默认 0.05
+	 * @param budget 对冲预算
+	 * @return HedgePolicy
+	 */
+	public HedgePolicy budget(double budget) {
+		if (budget >= 0) {
+			this.budget = budget;
+		}
+		return this;
+	}
+
+	/**
+	 * 记录一个普通请求，并返回其对冲延迟
+	 * @param host 主机
+	 * @return 对冲延迟（毫秒），小于 0 表示不对冲
+	 */
+	public long onRequest(String host) {
+		HostStat stat = stat(host);
+		synchronized (stat) {
+			stat.requests++;
+			stat.tokens = Math.min(MAX_TOKENS, stat.tokens + budget);
+			if (delayMillis >= 0) {
+				return delayMillis;
+			}
+			return stat.delay >= 0 ? stat.delay : fallbackDelayMillis;
+		}
+	}
+
+	/**
+	 * 尝试获取一个对冲预算
+	 * @param host 主机
+	 * @return 是否可以发送对冲请求
+	 */
+	public boolean tryHedge(String host) {
+		HostStat stat = stat(host);
+		synchronized (stat) {
+			if (stat.tokens < 1) {
+				return false;
+			}
+			stat.tokens -= 1;
+			stat.hedges++;
+			return true;
+		}
+	}
+
+	/**
+	 * 记录一个生效的响应
+	 * @param host 主机
+	 * @param latencyMillis 从主请求发出到得到响应的耗时（毫秒），对冲请求先响应时，
+	 * 它是主请求耗时的下限，以免样本只含较快的响应而使延迟偏低
+	 * @param hedgeWon 是否是对冲请求先响应
+	 */
+	public void onResponse(String host, long latencyMillis, boolean hedgeWon) {
+		HostStat stat = stat(host);
+		synchronized (stat) {
+			if (hedgeWon) {
+				stat.hedgeWins++;
+			}
+			sample(stat, latencyMillis);
+		}
+	}
+
+	/**
+	 * 记录一个未生效（在取消前已响应）的请求的耗时
+	 * @param host 主机
+	 * @param latencyMillis 该请求自身的耗时（毫秒）
+	 */
+	public void onLatency(String host, long latencyMillis) {
+		HostStat stat = stat(host);
+		synchronized (stat) {
+			sample(stat, latencyMillis);
+		}
+	}
+
+	// 须在 stat 的同步块内调用
+	private void sample(HostStat stat, long latencyMillis) {
+		stat.samples[(int) (stat.count++ & (SAMPLE_SIZE - 1))] = latencyMillis;
+		if (percentile > 0 && stat.count >= MIN_SAMPLES && stat.count % 8 == 0) {
+			int size = (int) Math.min(stat.count, SAMPLE_SIZE);
+			long[] sorted = Arrays.copyOf(stat.samples, size);
+			Arrays.sort(sorted);
+			stat.delay = sorted[(int) Math.min(size - 1, Math.floor(size * percentile))];
+		}
+	}
+
+	/**
+	 * @param host 主机
+	 * @return 该主机的对冲统计
+	 */
+	public Hedge getHedge(String host) {
+		HostStat stat = stat(host);
+		synchronized (stat) {
+			return new Hedge(host, stat.requests, stat.hedges, stat.hedgeWins);
+		}
+	}
+
+	private HostStat stat(String host) {
+		return hostStats.computeIfAbsent(host, (String key) -> new HostStat());
+	}
+
+	static class HostStat {
+
+		long requests;
+		long hedges;
+		long hedgeWins;
+		double tokens;
+		long[] samples = new long[SAMPLE_SIZE];
+		long count;
+		long delay = -1;
+
+	}
+
+	/**
+	 * 主机的对冲统计
+	 */
+	public static class Hedge {
+
+		private String host;
+		private long requests;
+		private long hedges;
+		private long hedgeWins;
+
+		public Hedge(String host, long requests, long hedges, long hedgeWins) {
+			this.host = host;
+			this.requests = requests;
+			this.hedges = hedges;
+			this.hedgeWins = hedgeWins;
+		}
+
+		/**
+		 * @return 主机
+		 */
+		public String getHost() {
+			return host;
+		}
+
+		/**
+		 * @return 普通请求数
+		 */
+		public long getRequests() {
+			return requests;
+		}
+
+		/**
+		 * @return 对冲请求数
+		 */
+		public long getHedges() {
+			return hedges;
+		}
+
+		/**
+		 * @return 对冲请求先响应的次数
+		 */
+		public long getHedgeWins() {
+			return hedgeWins;
+		}
+
+		/**
+		 * @return 对冲率，即对冲请求数与普通请求数之比
+		 */
+		public double getHedgeRate() {
+			return requests > 0 ? (double) hedges / requests : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "Hedge [host=" + host + ", requests=" + requests + ", hedges=" + hedges
+					+ ", hedgeWins=" + hedgeWins + "]";
+		}
+
+	}
+
+}
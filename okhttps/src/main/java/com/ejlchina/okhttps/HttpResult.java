@@ -67,7 +67,20 @@ public interface HttpResult {
 	    /**
 	     * 网络出错
 	     */
-	    NETWORK_ERROR
+	    NETWORK_ERROR,
+
+	    /**
+	     * 熔断器已打开，请求未发出
+	     * @since 2.0.0
+	     */
+	    CIRCUIT_OPEN,
+
+	    /**
+	     * 请求因超出限制（并发、速率等）被拒绝，未发出
+	     * @since 2.0.0
+	     */
+	    REJECTED
+
 		
 	}
 	
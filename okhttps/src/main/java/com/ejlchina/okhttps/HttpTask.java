@@ -1,5 +1,6 @@
 package com.ejlchina.okhttps;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -7,20 +8,30 @@ import java.net.ConnectException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import com.ejlchina.okhttps.HttpResult.State;
 import com.ejlchina.okhttps.internal.*;
-import com.ejlchina.okhttps.internal.HttpClient.TagTask;
+import com.ejlchina.okhttps.internal.TagRegistry.TagTask;
 
 import okhttp3.*;
 import okhttp3.internal.Util;
 import okhttp3.internal.http.HttpMethod;
 import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
 
 /**
  * Created by 周旭（Troy.Zhou） on 2020/3/11.
@@ -28,7 +39,6 @@ import okio.Buffer;
 @SuppressWarnings("unchecked")
 public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
 
-    private static final String PATH_PARAM_REGEX = "[A-Za-z0-9_\\-/]*\\{[A-Za-z0-9_\\-]+\\}[A-Za-z0-9_\\-/]*";
 
     protected HttpClient httpClient;
     protected boolean nothrow;
@@ -58,6 +68,21 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
     protected boolean skipPreproc = false;
     protected boolean skipSerialPreproc = false;
 
+    private HedgePolicy hedgePolicy;
+    private boolean hedgeSet = false;
+    private RetryPolicy retryPolicy;
+    private boolean retrySet = false;
+    private boolean coalesce = false;
+    private boolean streamBody = false;
+    private int priority = 0;
+    private long deadlineNanos = 0;
+    private volatile long deadlineAt;
+    private volatile boolean deadlineExceeded = false;
+    private volatile HashedWheelTimer.Timeout deadlineTimeout;
+    private int connectTimeout = -1;
+    private int readTimeout = -1;
+    private int writeTimeout = -1;
+    private RequestPrototype prototype;
 
     public HttpTask(HttpClient httpClient, String url) {
         this.urlPath = url;
@@ -66,6 +91,21 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
         this.bodyType = httpClient.bodyType();
     }
 
+    /**
+     * @since 2.0.0
+     * 由请求原型派生任务，任务只保存相对原型追加的部分
+     * @param httpClient HttpClient
+     * @param prototype 请求原型，尚未冻结时自动冻结
+     */
+    public HttpTask(HttpClient httpClient, RequestPrototype prototype) {
+        prototype.freeze();
+        this.urlPath = prototype.getUrl();
+        this.httpClient = httpClient;
+        this.charset = prototype.getCharset();
+        this.bodyType = prototype.getBodyType();
+        this.prototype = prototype;
+    }
+
     /**
      * 获取请求任务的URL地址
      * @return URL地址
@@ -101,10 +141,30 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
 
     /**
      * 获取请求任务的头信息
+     * 由请求原型派生的任务，返回的是原型请求头与本任务请求头合并后的副本
      * @return 头信息
      */
     public Map<String, String> getHeaders() {
-        return headers;
+        if (prototype == null) {
+            return headers;
+        }
+        Headers protoHeaders = prototype.getHeaders();
+        Map<String, String> merged = new HashMap<>();
+        for (int i = 0; i < protoHeaders.size(); i++) {
+            merged.put(protoHeaders.name(i), protoHeaders.value(i));
+        }
+        if (headers != null) {
+            merged.putAll(headers);
+        }
+        return merged;
+    }
+
+    /**
+     * @since 2.0.0
+     * @return 派生本任务的请求原型，可能为 null
+     */
+    public RequestPrototype getPrototype() {
+        return prototype;
     }
 
     /**
@@ -143,6 +203,117 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
 		return (C) this;
 	}
 
+    /**
+     * @since 2.0.0
+     * 设置该任务的对冲策略（只对 GET 与 HEAD 请求有效），覆盖全局默认的对冲策略
+     * @param policy 对冲策略，为 null 时该任务不对冲
+     * @return HttpTask 实例
+     */
+    public C hedge(HedgePolicy policy) {
+        this.hedgePolicy = policy;
+        this.hedgeSet = true;
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 设置该任务的重试策略，覆盖全局默认的重试策略
+     * @param policy 重试策略，为 null 时该任务不重试
+     * @return HttpTask 实例
+     */
+    public C retry(RetryPolicy policy) {
+        this.retryPolicy = policy;
+        this.retrySet = true;
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 与相同的进行中请求（方法、URL 与请求头都相同）合并，共用一个底层请求，
+     * 只对 GET 与 HEAD 请求有效，响应体将被读入内存
+     * @return HttpTask 实例
+     */
+    public C coalesce() {
+        this.coalesce = true;
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 以流式写出请求体：在发送时才将对象直接序列化到连接中，不在内存中缓冲整个报文，
+     * 适合较大的请求体。请求体长度未知，将以分块方式传输，需要转换器支持流式序列化
+     * @return HttpTask 实例
+     */
+    public C streamBody() {
+        this.streamBody = true;
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 设置优先级，配置了 {@link PriorityScheduler} 时，并发已满的情况下优先级高的任务先执行
+     * @param priority 优先级，数值越大越优先，默认 0
+     * @return HttpTask 实例
+     */
+    public C priority(int priority) {
+        this.priority = priority;
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 设置截止时间，从发起请求开始计时，涵盖预处理、排队、连接、传输与响应体读取的全过程，
+     * 到期时立即取消所有阶段的工作，结果状态为 {@link State#TIMEOUT}。
+     * 设置后，同步请求与 {@link HttpCall#getResult()} 的最长等待时间也由它决定
+     * @param timeout 时长
+     * @return HttpTask 实例
+     */
+    public C deadline(Duration timeout) {
+        this.deadlineNanos = timeout != null ? timeout.toNanos() : 0;
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 设置该任务的连接超时时间，覆盖全局设置（连接池与调度器仍与其它任务共用）
+     * @param timeout 时长
+     * @return HttpTask 实例
+     */
+    public C connectTimeout(Duration timeout) {
+        this.connectTimeout = toMillis(timeout);
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 设置该任务的读取超时时间，覆盖全局设置（连接池与调度器仍与其它任务共用）
+     * @param timeout 时长
+     * @return HttpTask 实例
+     */
+    public C readTimeout(Duration timeout) {
+        this.readTimeout = toMillis(timeout);
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 设置该任务的写入超时时间，覆盖全局设置（连接池与调度器仍与其它任务共用）
+     * @param timeout 时长
+     * @return HttpTask 实例
+     */
+    public C writeTimeout(Duration timeout) {
+        this.writeTimeout = toMillis(timeout);
+        return (C) this;
+    }
+
+    private static int toMillis(Duration timeout) {
+        long millis = timeout.toMillis();
+        if (millis < 0 || millis > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("超时时间超出范围：" + timeout);
+        }
+        return (int) millis;
+    }
+
     @Deprecated
     public C setTag(String tag) {
 	    return tag(tag);
@@ -385,6 +556,24 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
         return (C) this;
     }
 
+    /**
+     * @since 2.0.0
+     * URL参数：将 Java Bean 的属性展开为拼接在URL后的参数
+     * 参数名与值的格式与表单请求体一致，由表单转换器决定（如 @JsonProperty 生效），
+     * 没有配置转换器时按 JavaBeans 规范（getter 与公开字段）读取
+     * @param bean Java Bean
+     * @return HttpTask 实例
+     **/
+    public C addUrlPara(Object bean) {
+        if (bean != null) {
+            if (urlParams == null) {
+                urlParams = new HashMap<>();
+            }
+            httpClient.executor().encodeForm(bean, dateFormat, charset, urlParams::put);
+        }
+        return (C) this;
+    }
+
     @Deprecated
     public C addBodyParam(String name, Object value) {
         return addBodyPara(name, value);
@@ -424,6 +613,24 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
         return (C) this;
     }
 
+    /**
+     * @since 2.0.0
+     * Body参数：将 Java Bean 的属性展开为放在Body里的参数
+     * 参数名与值的格式与表单请求体一致，由表单转换器决定（如 @JsonProperty 生效），
+     * 没有配置转换器时按 JavaBeans 规范（getter 与公开字段）读取
+     * @param bean Java Bean
+     * @return HttpTask 实例
+     **/
+    public C addBodyPara(Object bean) {
+        if (bean != null) {
+            if (bodyParams == null) {
+                bodyParams = new HashMap<>();
+            }
+            httpClient.executor().encodeForm(bean, dateFormat, charset, bodyParams::put);
+        }
+        return (C) this;
+    }
+
     private void doAddParams(Map<String, String> taskParams, Map<String, ?> params) {
         if (params != null) {
             for (String name : params.keySet()) {
@@ -614,6 +821,86 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
         return (C) this;
     }
 
+    /**
+     * @since 2.0.0
+     * 添加文件参数，上传时直接从文件流式读取
+     * @param name 参数名
+     * @param path 文件路径
+     * @return HttpTask 实例
+     */
+    public C addFilePara(String name, Path path) {
+        if (name != null && path != null && Files.isRegularFile(path)) {
+            String fileName = path.getFileName().toString();
+            String type = fileName.substring(fileName.lastIndexOf(".") + 1);
+            long length;
+            try {
+                length = Files.size(path);
+            } catch (IOException e) {
+                throw new HttpException("无法读取文件大小：" + path, e);
+            }
+            addFilePara(name, new FilePara(type, fileName, () -> Okio.source(path), length, null));
+        }
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 添加文件参数，长度未知，以分块传输的方式流式上传，不在内存中缓冲
+     * 输入流只能被上传一次，写出后或请求失败、取消、被拒绝时自动关闭
+     * @param name 参数名
+     * @param type 文件类型: 如 png、jpg、jpeg 等
+     * @param fileName 文件名
+     * @param input 文件输入流
+     * @return HttpTask 实例
+     */
+    public C addFilePara(String name, String type, String fileName, InputStream input) {
+        return addFilePara(name, type, fileName, input, -1);
+    }
+
+    /**
+     * @since 2.0.0
+     * 添加文件参数，以流式上传，不在内存中缓冲
+     * 输入流只能被上传一次，写出后或请求失败、取消、被拒绝时自动关闭
+     * @param name 参数名
+     * @param type 文件类型: 如 png、jpg、jpeg 等
+     * @param fileName 文件名
+     * @param input 文件输入流
+     * @param length 输入流的字节数，未知时传 -1
+     * @return HttpTask 实例
+     */
+    public C addFilePara(String name, String type, String fileName, InputStream input, long length) {
+        if (name != null && input != null) {
+            addFilePara(name, new FilePara(type, fileName, () -> Okio.source(input), length, input));
+        }
+        return (C) this;
+    }
+
+    /**
+     * @since 2.0.0
+     * 添加文件参数，以流式上传，不在内存中缓冲
+     * 通道只能被上传一次，写出后或请求失败、取消、被拒绝时自动关闭
+     * @param name 参数名
+     * @param type 文件类型: 如 png、jpg、jpeg 等
+     * @param fileName 文件名
+     * @param channel 文件通道
+     * @param length 通道的字节数，未知时传 -1
+     * @return HttpTask 实例
+     */
+    public C addFilePara(String name, String type, String fileName, ReadableByteChannel channel, long length) {
+        if (name != null && channel != null) {
+            addFilePara(name, new FilePara(type, fileName,
+                    () -> Okio.source(Channels.newInputStream(channel)), length, channel));
+        }
+        return (C) this;
+    }
+
+    private void addFilePara(String name, FilePara file) {
+        if (files == null) {
+            files = new HashMap<>();
+        }
+        files.put(name, file);
+    }
+
     @Override
     public boolean cancel() {
         if (canceler != null) {
@@ -622,12 +909,40 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
         return false;
     }
 
+    /**
+     * 在每次发出请求（包括重试与对冲）时写入剩余的截止时间，
+     * 该请求头不参与请求合并的分组
+     */
+    static class DeadlineInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            HttpTask<?> task = request.tag(HttpTask.class);
+            if (task != null) {
+                String header = task.httpClient.deadlineHeader();
+                if (header != null) {
+                    request = request.newBuilder()
+                            .header(header, String.valueOf(task.remainingMillis()))
+                            .build();
+                }
+            }
+            return chain.proceed(request);
+        }
+
+    }
+
     static class FilePara {
 
         String type;
         String fileName;
         byte[] content;
         File file;
+        SourceRequestBody.Opener source;
+        long length;
+        boolean oneShot;
+        // 一次性的数据源（输入流或通道），请求结束时关闭
+        Closeable closeable;
 
         FilePara(String type, String fileName, byte[] content) {
             this.type = type;
@@ -641,6 +956,15 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
             this.file = file;
         }
 
+        FilePara(String type, String fileName, SourceRequestBody.Opener source, long length, Closeable closeable) {
+            this.type = type;
+            this.fileName = fileName;
+            this.source = source;
+            this.length = length;
+            this.oneShot = closeable != null;
+            this.closeable = closeable;
+        }
+
     }
     
     protected void registeTagTask(Cancelable canceler) {
@@ -660,14 +984,79 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
     }
     
     protected void removeTagTask() {
-        if (tag != null) {
-            httpClient.removeTagTask(this);
+        if (tagTask != null) {
+            httpClient.removeTagTask(tagTask);
+        }
+    }
+
+    /**
+     * @since 2.0.0
+     * 请求结束时关闭一次性的数据源（输入流与通道），
+     * 请求失败、被取消或被拒绝时它们可能未被写出，否则会一直占用资源
+     */
+    protected void closeSources() {
+        if (files == null) {
+            return;
+        }
+        for (FilePara file : files.values()) {
+            if (file.closeable != null) {
+                Util.closeQuietly(file.closeable);
+            }
         }
     }
 
     protected Call prepareCall(String method) {
         Request request = prepareRequest(method);
-		return httpClient.request(request);
+        OkHttpClient okClient = okClient();
+        CircuitBreaker breaker = httpClient.circuitBreaker();
+        Call call = breaker != null ? new BreakerCall(okClient, request, breaker)
+                : okClient.newCall(request);
+        // 先获得主机的执行权，再占用全局的优先级名额，以免在主机队列中等待时占着全局名额
+        PriorityScheduler scheduler = httpClient.priorityScheduler();
+        if (scheduler != null) {
+            call = LimitedCall.of(call, scheduler, priority);
+        }
+        ConcurrencyLimiter limiter = httpClient.concurrencyLimiter();
+        if (limiter != null) {
+            call = LimitedCall.of(call, limiter, httpClient.timer(), httpClient.executor());
+        }
+        List<RateLimiter.Bucket> buckets = rateBuckets(request.url().host());
+        if (buckets != null) {
+            call = new RateLimitedCall(httpClient.timer(), httpClient.executor(), call, buckets);
+        }
+        HedgePolicy policy = hedgeSet ? hedgePolicy : httpClient.hedgePolicy();
+        if (policy != null && ("GET".equals(method) || "HEAD".equals(method))) {
+            call = new HedgedCall(httpClient, this, call, policy);
+        }
+        RetryPolicy retry = retrySet ? retryPolicy : httpClient.retryPolicy();
+        if (retry != null && retry.canRetry(method)) {
+            call = new RetryingCall(httpClient.timer(), call, retry, (IOException e) -> toState(e, false));
+        }
+        if ((coalesce || httpClient.isCoalesce()) && ("GET".equals(method) || "HEAD".equals(method))) {
+            call = new CoalescedCall(call, httpClient.singleFlight());
+        }
+		return call;
+    }
+
+    private OkHttpClient okClient() {
+        if (connectTimeout < 0 && readTimeout < 0 && writeTimeout < 0) {
+            return httpClient.okClient();
+        }
+        return httpClient.okClient(connectTimeout, readTimeout, writeTimeout);
+    }
+
+    private List<RateLimiter.Bucket> rateBuckets(String host) {
+        List<RateLimiter.Bucket> buckets = null;
+        for (RateLimiter rateLimiter : httpClient.rateLimiters()) {
+            RateLimiter.Bucket bucket = rateLimiter.bucket(host, tag);
+            if (bucket != null) {
+                if (buckets == null) {
+                    buckets = new ArrayList<>();
+                }
+                buckets.add(bucket);
+            }
+        }
+        return buckets;
     }
 
     protected Request prepareRequest(String method) {
@@ -676,6 +1065,10 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
 		Request.Builder builder = new Request.Builder()
                 .url(buildUrlPath());
         buildHeaders(builder);
+        if (deadlineNanos > 0 && httpClient.deadlineHeader() != null) {
+            // 剩余时间由 DeadlineInterceptor 在每次发出请求时写入
+            builder.tag(HttpTask.class, this);
+        }
         if (bodyCanUsed) {
             RequestBody reqBody = buildRequestBody();
             if (onProcess != null) {
@@ -706,17 +1099,33 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
     }
 
     private void buildHeaders(Request.Builder builder) {
+        if (prototype != null) {
+            builder.headers(prototype.getHeaders());
+        }
         if (headers != null) {
             for (String name : headers.keySet()) {
                 String value = headers.get(name);
                 if (value != null) {
-                    builder.addHeader(name, value);
+                    // 覆盖原型中的同名请求头
+                    builder.header(name, value);
                 }
             }
         }
     }
 
     protected State toState(IOException e, boolean sync) {
+        if (deadlineExceeded) {
+            return State.TIMEOUT;
+        }
+        if (e instanceof CircuitOpenException) {
+            return State.CIRCUIT_OPEN;
+        }
+        if (e instanceof RejectedException) {
+            return State.REJECTED;
+        }
+        if (e instanceof SerializeException) {
+            return State.EXCEPTION;
+        }
         if (e instanceof SocketTimeoutException) {
             return State.TIMEOUT;
         } else if (e instanceof UnknownHostException || e instanceof ConnectException) {
@@ -741,18 +1150,23 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
                     builder.addPart(MultipartBody.Part.createFormData(name, null, body));
                 }
             }
+            boolean oneShot = false;
             for (String name : files.keySet()) {
                 FilePara file = files.get(name);
                 MediaType type = httpClient.mediaType(file.type);
                 RequestBody bodyPart;
                 if (file.file != null) {
                     bodyPart = RequestBody.create(type, file.file);
+                } else if (file.source != null) {
+                    bodyPart = new SourceRequestBody(type, file.source, file.length, file.oneShot);
+                    oneShot |= file.oneShot;
                 } else {
                     bodyPart = RequestBody.create(type, file.content);
                 }
                 builder.addFormDataPart(name, file.fileName, bodyPart);
             }
-            return builder.build();
+            MultipartBody body = builder.build();
+            return oneShot ? SourceRequestBody.oneShot(body) : body;
         }
         if (requestBody != null) {
             return toRequestBody(requestBody);
@@ -772,59 +1186,47 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
     }
 
     private RequestBody toRequestBody(Object object) {
+        MediaType protoType = prototypeMediaType();
         if (object instanceof byte[] || object instanceof String) {
-            String mediaType = httpClient.executor().doMsgConvert(bodyType, null).mediaType;
             byte[] body = object instanceof byte[] ? (byte[]) object : ((String) object).getBytes(charset);
-            return RequestBody.create(MediaType.parse(mediaType + "; charset=" + charset.name()), body);
+            if (protoType != null) {
+                return RequestBody.create(protoType, body);
+            }
+            return RequestBody.create(httpClient.executor().mediaType(bodyType, charset), body);
+        }
+        if (streamBody && onProcess == null) {
+            // 进度回调需要预知请求体长度，此时只能走缓冲序列化
+            MsgConvertor convertor = httpClient.executor().matchConvertor(bodyType);
+            if (convertor != null && convertor.supportsStreaming()) {
+                MediaType type = protoType != null ? protoType
+                        : httpClient.executor().mediaType(bodyType, charset);
+                return new StreamRequestBody(type, convertor, object, dateFormat, charset);
+            }
         }
         TaskExecutor.Data<byte[]> data = httpClient.executor()
                 .doMsgConvert(bodyType, (MsgConvertor c) -> c.serialize(object, dateFormat, charset));
-        return RequestBody.create(MediaType.parse(data.mediaType + "; charset=" + charset.name()), data.data);
+        if (protoType != null) {
+            return RequestBody.create(protoType, data.data);
+        }
+        return RequestBody.create(httpClient.executor().parseMediaType(data.mediaType, charset), data.data);
     }
 
-    private String buildUrlPath() {
-        String url = urlPath;
-        if (url == null || url.trim().isEmpty()) {
-            throw new HttpException("url 不能为空！");
+    // 请求体类型与编码未被本任务修改时，使用原型预先解析的媒体类型
+    private MediaType prototypeMediaType() {
+        if (prototype != null && bodyType.equals(prototype.getBodyType())
+                && charset.equals(prototype.getCharset())) {
+            return prototype.getMediaType();
         }
-        if (pathParams != null) {
-            for (String name : pathParams.keySet()) {
-                String target = "{" + name + "}";
-                if (url.contains(target)) {
-                    url = url.replace(target, pathParams.get(name));
-                } else {
-                    throw new HttpException("pathParameter [ " + name + " ] 不存在于 url [ " + urlPath + " ]");
-                }
-            }
-        }
-        if (url.matches(PATH_PARAM_REGEX)) {
-            throw new HttpException("url 里有 pathParameter 没有设置，你必须先调用 addPathParam 为其设置！");
-        }
-        if (urlParams != null) {
-            url = buildUrl(url.trim());
-        }
-        return url;
+        return null;
     }
 
-    private String buildUrl(String url) {
-        StringBuilder sb = new StringBuilder(url);
-        if (url.contains("?")) {
-            if (!url.endsWith("?")) {
-                if (url.lastIndexOf("=") < url.lastIndexOf("?") + 2) {
-                    throw new HttpException("url 格式错误，'？' 后没有发现 '='");
-                }
-                if (!url.endsWith("&")) {
-                    sb.append('&');
-                }
-            }
-        } else {
-            sb.append('?');
-        }
-        for (String name : urlParams.keySet()) {
-            sb.append(name).append('=').append(urlParams.get(name)).append('&');
+    private HttpUrl buildUrlPath() {
+        if (urlPath == null || urlPath.trim().isEmpty()) {
+            throw new HttpException("url 不能为空！");
         }
-        sb.delete(sb.length() - 1, sb.length());
-        return sb.toString();
+        UrlTemplate template = prototype != null ? prototype.getUrlTemplate()
+                : httpClient.urlTemplate(urlPath);
+        return template.build(pathParams, urlParams);
     }
 
     protected void assertNotConflict(boolean bodyCantUsed) {
@@ -849,13 +1251,89 @@ public abstract class HttpTask<C extends HttpTask<?>> implements Cancelable {
         }
     }
 
+    /**
+     * 开始截止时间计时
+     * @param onExpired 到期时的取消操作
+     */
+    protected void startDeadline(Runnable onExpired) {
+        if (deadlineNanos <= 0) {
+            return;
+        }
+        deadlineAt = System.nanoTime() + deadlineNanos;
+        deadlineTimeout = httpClient.timer().newTimeout(() -> {
+            deadlineExceeded = true;
+            // 取消操作会同步触发回调，不能占用计时器线程
+            httpClient.executor().execute(onExpired, true);
+        }, deadlineNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 取消截止时间计时，任务结束后调用
+     */
+    protected void cancelDeadline() {
+        HashedWheelTimer.Timeout timeout = deadlineTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 截止时间涵盖响应体的读取，因此有响应体时，在其关闭后才取消计时
+     * @param response 响应
+     * @return 关闭响应体时取消计时的响应
+     */
+    protected Response deadlineResponse(Response response) {
+        ResponseBody body = response.body();
+        if (deadlineTimeout == null || body == null) {
+            cancelDeadline();
+            return response;
+        }
+        BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    cancelDeadline();
+                }
+            }
+        });
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), source))
+                .build();
+    }
+
+    /**
+     * @return 截止时间是否已到
+     */
+    protected boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * @return 剩余的等待时间（毫秒），未设置截止时间时为最大预处理时间
+     */
+    protected long remainingMillis() {
+        if (deadlineNanos > 0) {
+            return Math.max(TimeUnit.NANOSECONDS.toMillis(deadlineAt - System.nanoTime()), 0);
+        }
+        if (connectTimeout < 0 && readTimeout < 0 && writeTimeout < 0) {
+            return httpClient.preprocTimeoutMillis();
+        }
+        OkHttpClient okClient = httpClient.okClient();
+        long total = (connectTimeout < 0 ? okClient.connectTimeoutMillis() : connectTimeout)
+                + (readTimeout < 0 ? okClient.readTimeoutMillis() : readTimeout)
+                + (writeTimeout < 0 ? okClient.writeTimeoutMillis() : writeTimeout);
+        return httpClient.preprocTimeoutTimes() * total;
+    }
+
     /**
      * @param latch CountDownLatch
      * @return 是否未超时：false 表示已超时
      */
     protected boolean timeoutAwait(CountDownLatch latch) {
         try {
-            return latch.await(httpClient.preprocTimeoutMillis(),
+            return latch.await(remainingMillis(),
                     TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             throw new HttpException("超时", e);
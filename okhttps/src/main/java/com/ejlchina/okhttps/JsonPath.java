@@ -0,0 +1,310 @@
+package com.ejlchina.okhttps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ejlchina.okhttps.internal.HttpException;
+
+/**
+ * @since 2.0.0
+ * 报文路径，如 data.total、data.items[0].id、data.items[*].id
+ * 用于在流式解析报文时只读取需要的值，其余的子树在解析器层面直接跳过
+ * 路径以 $ 或 $. 开头均可省略，* 匹配任意属性名或数组下标
+ */
+public final class JsonPath {
+
+	private static final int NO = 0;
+	private static final int PREFIX = 1;
+	private static final int MATCH = 2;
+
+	private final String path;
+	// 属性名为 String，数组下标为 Integer，通配符为 null
+	private final Object[] segments;
+	// 第一个通配符之前的段数，不含通配符时等于 segments.length
+	private final int definite;
+
+	private JsonPath(String path, Object[] segments) {
+		this.path = path;
+		this.segments = segments;
+		int definite = segments.length;
+		for (int i = 0; i < segments.length; i++) {
+			if (segments[i] == null) {
+				definite = i;
+				break;
+			}
+		}
+		this.definite = definite;
+	}
+
+	/**
+	 * 解析路径
+	 * @param path 路径，如 data.items[*].id
+	 * @return JsonPath
+	 */
+	public static JsonPath compile(String path) {
+		if (path == null) {
+			throw new IllegalArgumentException("path 不可为空！");
+		}
+		String p = path.trim();
+		int i = 0;
+		if (p.startsWith("$")) {
+			i = 1;
+		}
+		List<Object> segments = new ArrayList<>();
+		int length = p.length();
+		while (i < length) {
+			char c = p.charAt(i);
+			if (c == '.') {
+				i++;
+				continue;
+			}
+			if (c == '[') {
+				int end = p.indexOf(']', i);
+				if (end < 0) {
+					throw new HttpException("路径 [" + path + "] 缺少 ]");
+				}
+				String index = p.substring(i + 1, end).trim();
+				if ("*".equals(index)) {
+					segments.add(null);
+				} else {
+					try {
+						segments.add(Integer.valueOf(index));
+					} catch (NumberFormatException e) {
+						throw new HttpException("路径 [" + path + "] 的数组下标不合法：" + index);
+					}
+				}
+				i = end + 1;
+				continue;
+			}
+			int start = i;
+			while (i < length && p.charAt(i) != '.' && p.charAt(i) != '[') {
+				i++;
+			}
+			String name = p.substring(start, i);
+			segments.add("*".equals(name) ? null : name);
+		}
+		return new JsonPath(path, segments.toArray());
+	}
+
+	/**
+	 * @return 是否不含通配符，即最多只匹配一个值
+	 */
+	public boolean isDefinite() {
+		return definite == segments.length;
+	}
+
+	// 判断 location 的前 depth 段与本路径的关系
+	int match(Object[] location, int depth) {
+		if (depth > segments.length) {
+			return NO;
+		}
+		for (int i = 0; i < depth; i++) {
+			Object segment = segments[i];
+			if (segment != null && !segment.equals(location[i])) {
+				return NO;
+			}
+		}
+		return depth == segments.length ? MATCH : PREFIX;
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+
+	/**
+	 * 提取目标，收集路径上匹配到的值
+	 * @param <T> 值的泛型
+	 */
+	public static class Target<T> {
+
+		private final JsonPath path;
+		private final Class<T> type;
+		private final boolean single;
+		private final List<T> values = new ArrayList<>();
+		private boolean done = false;
+
+		/**
+		 * @param path 路径
+		 * @param type 值的类型
+		 * @param single 是否只取第一个匹配的值
+		 */
+		public Target(JsonPath path, Class<T> type, boolean single) {
+			this.path = path;
+			this.type = type;
+			this.single = single;
+		}
+
+		public JsonPath getPath() {
+			return path;
+		}
+
+		public Class<T> getType() {
+			return type;
+		}
+
+		/**
+		 * @return 匹配到的值
+		 */
+		public List<T> getValues() {
+			return values;
+		}
+
+		/**
+		 * @return 第一个匹配到的值，没有则返回 null
+		 */
+		public T getValue() {
+			return values.isEmpty() ? null : values.get(0);
+		}
+
+		/**
+		 * @return 是否已不会再有匹配的值
+		 */
+		public boolean isDone() {
+			return done;
+		}
+
+		@SuppressWarnings("unchecked")
+		void add(Object value) {
+			if (value == null || type.isInstance(value)) {
+				values.add((T) value);
+			}
+			if (single || path.isDefinite()) {
+				done = true;
+			}
+		}
+
+	}
+
+	/**
+	 * 报文游标，由各转换器基于其流式解析器实现
+	 */
+	public interface Cursor {
+
+		enum Kind {
+			OBJECT, ARRAY, VALUE
+		}
+
+		/**
+		 * @return 下一个值的类型
+		 * @throws IOException 解析异常
+		 */
+		Kind peek() throws IOException;
+
+		void beginObject() throws IOException;
+
+		void endObject() throws IOException;
+
+		void beginArray() throws IOException;
+
+		void endArray() throws IOException;
+
+		/**
+		 * @return 当前对象或数组中是否还有元素
+		 * @throws IOException 解析异常
+		 */
+		boolean hasNext() throws IOException;
+
+		/**
+		 * @return 下一个属性名
+		 * @throws IOException 解析异常
+		 */
+		String nextName() throws IOException;
+
+		/**
+		 * 跳过下一个值（含其子树）
+		 * @throws IOException 解析异常
+		 */
+		void skipValue() throws IOException;
+
+		/**
+		 * 将下一个值读取为指定类型
+		 * @param <T> 目标泛型
+		 * @param type 目标类型
+		 * @return 值
+		 * @throws IOException 解析异常
+		 */
+		<T> T read(Class<T> type) throws IOException;
+
+	}
+
+	/**
+	 * 遍历报文并收集各目标的值，所有目标都满足后立即停止读取
+	 * 只深入可能匹配的子树，其余的值通过 {@link Cursor#skipValue()} 跳过
+	 * 同一位置被多个目标匹配时，以第一个目标的类型读取
+	 * 被某个目标整体读取的值不再深入，其内部的位置不会匹配其它目标
+	 * @param cursor 报文游标
+	 * @param targets 提取目标
+	 * @throws IOException 解析异常
+	 */
+	public static void extract(Cursor cursor, Target<?>... targets) throws IOException {
+		int depth = 0;
+		for (Target<?> target : targets) {
+			depth = Math.max(depth, target.path.segments.length);
+		}
+		walk(cursor, targets, new Object[depth], 0);
+	}
+
+	// 返回 false 表示所有目标都已满足，应停止读取
+	private static boolean walk(Cursor cursor, Target<?>[] targets, Object[] location, int depth) throws IOException {
+		Target<?> first = null;
+		boolean descend = false;
+		for (Target<?> target : targets) {
+			if (target.done) {
+				continue;
+			}
+			int match = target.path.match(location, depth);
+			if (match == MATCH && first == null) {
+				first = target;
+			} else if (match == PREFIX) {
+				descend = true;
+			}
+		}
+		if (first != null) {
+			Object value = cursor.read(first.type);
+			for (Target<?> target : targets) {
+				if (!target.done && target.path.match(location, depth) == MATCH) {
+					target.add(value);
+				}
+			}
+		} else if (descend) {
+			Cursor.Kind kind = cursor.peek();
+			if (kind == Cursor.Kind.OBJECT) {
+				cursor.beginObject();
+				while (cursor.hasNext()) {
+					location[depth] = cursor.nextName();
+					if (!walk(cursor, targets, location, depth + 1)) {
+						return false;
+					}
+				}
+				cursor.endObject();
+			} else if (kind == Cursor.Kind.ARRAY) {
+				cursor.beginArray();
+				int index = 0;
+				while (cursor.hasNext()) {
+					location[depth] = index++;
+					if (!walk(cursor, targets, location, depth + 1)) {
+						return false;
+					}
+				}
+				cursor.endArray();
+			} else {
+				cursor.skipValue();
+			}
+		} else {
+			cursor.skipValue();
+		}
+		// 属性名唯一，确定部分已经读完的目标不会再有新的匹配
+		boolean pending = false;
+		for (Target<?> target : targets) {
+			if (!target.done && depth <= target.path.definite
+					&& target.path.match(location, depth) != NO) {
+				target.done = true;
+			}
+			pending |= !target.done;
+		}
+		return pending;
+	}
+
+}
@@ -1,10 +1,20 @@
 package com.ejlchina.okhttps;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import com.ejlchina.okhttps.internal.FormEncoder;
+import com.ejlchina.okhttps.internal.HttpException;
+
+import okhttp3.FormBody;
+import okio.Buffer;
+
 /**
  * 消息转换器接口
  */
@@ -48,6 +58,28 @@ public interface MsgConvertor {
 	 * @return 字节数组
 	 */
 	byte[] serialize(Object object, String dateFormat, Charset charset);
+
+	/**
+	 * @since 2.0.0
+	 * 将 Java 对象直接序列化到输出流，用于流式写出请求体，不必在内存中保留整个报文
+	 * 默认实现先序列化为字节数组再写出，实现方不得关闭输出流
+	 * @param object Java 对象
+	 * @param dateFormat 日期类的处理格式，可为 null
+	 * @param charset 编码格式
+	 * @param out 输出流
+	 * @throws IOException 写出异常
+	 */
+	default void serialize(Object object, String dateFormat, Charset charset, OutputStream out) throws IOException {
+		out.write(serialize(object, dateFormat, charset));
+	}
+
+	/**
+	 * @since 2.0.0
+	 * @return 是否真正支持流式序列化，为 true 时开启了 streamBody 的任务会将请求体直接序列化到连接中
+	 */
+	default boolean supportsStreaming() {
+		return false;
+	}
 	
 	/**
 	 * 解析 Java Bean
@@ -69,6 +101,56 @@ public interface MsgConvertor {
 	 */
 	<T> List<T> toList(Class<T> type, InputStream in, Charset charset);
 
+	/**
+	 * @since 2.0.0
+	 * 逐个解析数组中的元素，不在内存中保留整个列表，迭代结束或被关闭时关闭输入流
+	 * 默认实现先解析为完整的列表，支持流式解析的转换器应覆盖该方法
+	 * @param <T> 目标泛型
+	 * @param type 目标类型
+	 * @param in 输入流
+	 * @param charset 编码格式
+	 * @return 可关闭的迭代器
+	 */
+	default <T> CloseableIterator<T> toIterator(Class<T> type, InputStream in, Charset charset) {
+		List<T> list;
+		try {
+			list = toList(type, in, charset);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException ignore) {}
+		}
+		Iterator<T> it = list != null ? list.iterator() : Collections.emptyIterator();
+		return new CloseableIterator<T>() {
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public T next() {
+				return it.next();
+			}
+
+			@Override
+			public void close() {}
+
+		};
+	}
+
+	/**
+	 * @since 2.0.0
+	 * 流式遍历报文，只读取各目标路径上的值，不构建完整的对象树，所有目标都满足后即停止读取
+	 * 实现方通常基于自身的流式解析器实现 {@link JsonPath.Cursor} 后调用 {@link JsonPath#extract}
+	 * @param in 输入流
+	 * @param charset 编码格式
+	 * @param targets 提取目标
+	 */
+	default void extract(InputStream in, Charset charset, JsonPath.Target<?>... targets) {
+		throw new HttpException(getClass().getName() + " 不支持路径提取！");
+	}
+
 	/**
 	 * 表单转换器，可用于自动系列化表单参数
 	 */
@@ -102,16 +184,39 @@ public interface MsgConvertor {
 
 		@Override
 		public byte[] serialize(Object object, String dateFormat, Charset charset) {
+			FormBody.Builder builder = new FormBody.Builder(charset);
+			encode(object, dateFormat, charset, builder::add);
+			Buffer buffer = new Buffer();
+			try {
+				builder.build().writeTo(buffer);
+			} catch (IOException e) {
+				throw new HttpException("表单序列化异常", e);
+			}
+			return buffer.readByteArray();
+		}
+
+		/**
+		 * 将对象展开为表单参数，表单请求体与 addUrlPara(Object)、addBodyPara(Object) 共用此规则
+		 * @param object Java Bean 或 Map
+		 * @param dateFormat 日期格式，可为 null
+		 * @param charset 编码
+		 * @param sink 参数接收者
+		 */
+		public void encode(Object object, String dateFormat, Charset charset, FormEncoder.Sink sink) {
+			if (FormEncoder.isFlat(object)) {
+				// 只含简单值的 Map 不涉及属性名与格式的转换，直接编码
+				FormEncoder.encode(object, dateFormat, sink);
+				return;
+			}
+			// 属性名与值的格式由转换器决定，如 @JsonProperty、@SerializedName 与日期格式
 			byte[] data = convertor.serialize(object, dateFormat, charset);
 			Mapper mapper = convertor.toMapper(new ByteArrayInputStream(data), charset);
-			StringBuilder sb = new StringBuilder();
-			for (String key: mapper.keySet()) {
-				sb.append(key).append('=').append(mapper.getString(key)).append('&');
+			for (String key : mapper.keySet()) {
+				String value = mapper.getString(key);
+				if (value != null) {
+					sink.add(key, value);
+				}
 			}
-			if (sb.length() > 1) {
-				sb.deleteCharAt(sb.length() - 1);
-			}
-			return sb.toString().getBytes(charset);
 		}
 
 		@Override
@@ -124,6 +229,16 @@ public interface MsgConvertor {
 			return convertor.toList(type, in, charset);
 		}
 
+		@Override
+		public <T> CloseableIterator<T> toIterator(Class<T> type, InputStream in, Charset charset) {
+			return convertor.toIterator(type, in, charset);
+		}
+
+		@Override
+		public void extract(InputStream in, Charset charset, JsonPath.Target<?>... targets) {
+			convertor.extract(in, charset, targets);
+		}
+
 	}
 
 }
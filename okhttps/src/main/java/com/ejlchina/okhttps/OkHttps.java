@@ -59,6 +59,23 @@ public final class OkHttps {
         return getHttp().webSocket(url);
     }
 
+    /**
+     * 批量请求
+     * @return 批量任务
+     */
+    public static BatchTask batch() {
+        return getHttp().batch();
+    }
+
+    /**
+     * 请求原型
+     * @param url 请求地址
+     * @return 请求原型
+     */
+    public static RequestPrototype prototype(String url) {
+        return getHttp().prototype(url);
+    }
+
     /**
      * 根据标签取消HTTP任务，只要任务的标签包含指定的Tag就会被取消
      * @param tag 标签
@@ -0,0 +1,282 @@
+package com.ejlchina.okhttps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按优先级调度的执行器
+ * 全局并发数达到上限时，请求按优先级（数值越大越优先）排队，同一优先级先进先出；
+ * 排队的请求每等待 agingMillis，有效优先级加 1，以免低优先级的请求饿死
+ * @since 2.0.0
+ */
+public class PriorityScheduler {
+
+	private final int maxConcurrent;
+	private long agingNanos = TimeUnit.SECONDS.toNanos(1);
+	private int maxQueue = Integer.MAX_VALUE;
+
+	// 各优先级的等待队列
+	private final TreeMap<Integer, ArrayDeque<Waiting>> queues = new TreeMap<>(Collections.reverseOrder());
+	private final Map<Integer, Stats> stats = new TreeMap<>(Collections.reverseOrder());
+	private int inflight;
+	private int queued;
+
+	/**
+	 * @param maxConcurrent 最大并发数，可设为 OkHttp 调度器的 maxRequests，使请求不在调度器中排队
+	 */
+	public PriorityScheduler(int maxConcurrent) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException("maxConcurrent 必须大于 0");
+		}
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	/**
+	 * @param agingMillis 排队请求的有效优先级每隔多久加 1（毫秒），默认 1000，小于等于 0 表示不老化
+	 * @return PriorityScheduler
+	 */
+	public PriorityScheduler agingMillis(long agingMillis) {
+		this.agingNanos = agingMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(agingMillis) : Long.MAX_VALUE;
+		return this;
+	}
+
+	/**
+	 * @param maxQueue 最大排队数，超出时请求以 {@link HttpResult.State#REJECTED} 快速失败，默认不限
+	 * @return PriorityScheduler
+	 */
+	public PriorityScheduler maxQueue(int maxQueue) {
+		this.maxQueue = Math.max(maxQueue, 0);
+		return this;
+	}
+
+	/**
+	 * 申请执行一个请求
+	 * @param priority 优先级
+	 * @param permit 许可
+	 */
+	public void acquire(int priority, Permit permit) {
+		boolean admit = false;
+		synchronized (this) {
+			if (inflight < maxConcurrent) {
+				inflight++;
+				stats(priority).record(0);
+				admit = true;
+			} else if (queued < maxQueue) {
+				queues.computeIfAbsent(priority, (Integer key) -> new ArrayDeque<>())
+						.add(new Waiting(priority, permit));
+				queued++;
+				return;
+			} else {
+				stats(priority).rejected++;
+			}
+		}
+		if (admit) {
+			permit.onAdmit();
+		} else {
+			permit.onReject(new RejectedException("优先级队列已满"));
+		}
+	}
+
+	/**
+	 * 放弃排队中的许可
+	 * @param permit 许可
+	 * @return 是否在排队中并已移出队列
+	 */
+	public synchronized boolean abandon(Permit permit) {
+		for (ArrayDeque<Waiting> queue : queues.values()) {
+			if (queue.removeIf((Waiting waiting) -> waiting.permit == permit)) {
+				queued--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 归还执行权，并放行有效优先级最高的排队请求
+	 */
+	public void release() {
+		Waiting next;
+		synchronized (this) {
+			inflight--;
+			next = poll();
+			if (next != null) {
+				inflight++;
+				stats(next.priority).record(System.nanoTime() - next.enqueueAt);
+			}
+		}
+		if (next != null) {
+			next.permit.onAdmit();
+		}
+	}
+
+	/**
+	 * @return 正在执行的请求数
+	 */
+	public synchronized int getInflight() {
+		return inflight;
+	}
+
+	/**
+	 * @return 正在排队的请求数
+	 */
+	public synchronized int getQueued() {
+		return queued;
+	}
+
+	/**
+	 * @param priority 优先级
+	 * @return 该优先级的排队统计
+	 */
+	public synchronized Stats getStats(int priority) {
+		return stats(priority).copy();
+	}
+
+	/**
+	 * @return 所有优先级的排队统计（按优先级从高到低）
+	 */
+	public synchronized List<Stats> getStats() {
+		List<Stats> list = new ArrayList<>();
+		for (Stats s : stats.values()) {
+			list.add(s.copy());
+		}
+		return list;
+	}
+
+	// 每个队列的队首是该优先级中等待最久的，只需比较各队首
+	private Waiting poll() {
+		long now = System.nanoTime();
+		ArrayDeque<Waiting> best = null;
+		long bestPriority = Long.MIN_VALUE;
+		for (ArrayDeque<Waiting> queue : queues.values()) {
+			Waiting head = queue.peek();
+			if (head == null) {
+				continue;
+			}
+			long effective = head.priority + (now - head.enqueueAt) / agingNanos;
+			if (effective > bestPriority) {
+				bestPriority = effective;
+				best = queue;
+			}
+		}
+		if (best == null) {
+			return null;
+		}
+		queued--;
+		return best.poll();
+	}
+
+	private Stats stats(int priority) {
+		return stats.computeIfAbsent(priority, Stats::new);
+	}
+
+	/**
+	 * 执行许可
+	 */
+	public static abstract class Permit {
+
+		/**
+		 * 获得执行权
+		 */
+		protected abstract void onAdmit();
+
+		/**
+		 * 被拒绝
+		 * @param e 拒绝异常
+		 */
+		protected abstract void onReject(RejectedException e);
+
+	}
+
+	static class Waiting {
+
+		final int priority;
+		final Permit permit;
+		final long enqueueAt = System.nanoTime();
+
+		Waiting(int priority, Permit permit) {
+			this.priority = priority;
+			this.permit = permit;
+		}
+
+	}
+
+	/**
+	 * 某个优先级的排队统计
+	 */
+	public static class Stats {
+
+		private final int priority;
+		private long admitted;
+		private long rejected;
+		private long totalWaitNanos;
+		private long maxWaitNanos;
+
+		Stats(int priority) {
+			this.priority = priority;
+		}
+
+		void record(long waitNanos) {
+			admitted++;
+			totalWaitNanos += waitNanos;
+			maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+		}
+
+		Stats copy() {
+			Stats copy = new Stats(priority);
+			copy.admitted = admitted;
+			copy.rejected = rejected;
+			copy.totalWaitNanos = totalWaitNanos;
+			copy.maxWaitNanos = maxWaitNanos;
+			return copy;
+		}
+
+		/**
+		 * @return 优先级
+		 */
+		public int getPriority() {
+			return priority;
+		}
+
+		/**
+		 * @return 已放行的请求数（包括无需排队的）
+		 */
+		public long getAdmitted() {
+			return admitted;
+		}
+
+		/**
+		 * @return 被拒绝的请求数
+		 */
+		public long getRejected() {
+			return rejected;
+		}
+
+		/**
+		 * @return 平均排队时间（毫秒）
+		 */
+		public double getAvgWaitMillis() {
+			return admitted > 0 ? totalWaitNanos / 1e6 / admitted : 0;
+		}
+
+		/**
+		 * @return 最长排队时间（毫秒）
+		 */
+		public long getMaxWaitMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+		}
+
+		@Override
+		public String toString() {
+			return "Stats [priority=" + priority + ", admitted=" + admitted + ", rejected=" + rejected
+					+ ", avgWaitMillis=" + getAvgWaitMillis() + ", maxWaitMillis=" + getMaxWaitMillis() + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,243 @@
+package com.ejlchina.okhttps;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Response;
+import okhttp3.internal.http.HttpDate;
+
+/**
+ * 令牌桶速率限制器，可按主机、按标签前缀或全局限速
+ * 受限的请求在定时器上等待（按申请顺序放行），不占用线程；预计等待超过最大等待时间的请求
+ * 以 {@link HttpResult.State#REJECTED} 快速失败。响应中的 Retry-After 与 X-RateLimit-* 头会动态调整速率
+ * @since 2.0.0
+ */
+public class RateLimiter {
+
+	private enum Scope {
+		HOST, TAG, GLOBAL
+	}
+
+	private final Scope scope;
+	private final String tagPrefix;
+	private final long intervalNanos;
+	private int burst = 1;
+	private long maxWaitNanos = Long.MAX_VALUE;
+
+	private final Map<String, Bucket> hostBuckets = new ConcurrentHashMap<>();
+	private volatile Bucket bucket;
+
+	private RateLimiter(Scope scope, String tagPrefix, double permitsPerSecond) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("permitsPerSecond 必须大于 0");
+		}
+		this.scope = scope;
+		this.tagPrefix = tagPrefix;
+		this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+	}
+
+	/**
+	 * @param permitsPerSecond 每个主机每秒的请求数
+	 * @return RateLimiter
+	 */
+	public static RateLimiter perHost(double permitsPerSecond) {
+		return new RateLimiter(Scope.HOST, null, permitsPerSecond);
+	}
+
+	/**
+	 * 限制标签的某个分段以 tagPrefix 开头的任务，这些任务共用一个令牌桶
+	 * @param tagPrefix 标签前缀
+	 * @param permitsPerSecond 每秒的请求数
+	 * @return RateLimiter
+	 */
+	public static RateLimiter byTag(String tagPrefix, double permitsPerSecond) {
+		if (tagPrefix == null || tagPrefix.isEmpty()) {
+			throw new IllegalArgumentException("tagPrefix 不能为空");
+		}
+		return new RateLimiter(Scope.TAG, tagPrefix, permitsPerSecond);
+	}
+
+	/**
+	 * @param permitsPerSecond 所有请求每秒的总数
+	 * @return RateLimiter
+	 */
+	public static RateLimiter global(double permitsPerSecond) {
+		return new RateLimiter(Scope.GLOBAL, null, permitsPerSecond);
+	}
+
+	/**
+	 * @param burst 允许的突发请求数，默认 1
+	 * @return RateLimiter
+	 */
+	public RateLimiter burst(int burst) {
+		this.burst = Math.max(burst, 1);
+		return this;
+	}
+
+	/**
+	 * @param maxWaitMillis 最大等待时间（毫秒），默认不限，为 0 时不等待
+	 * @return RateLimiter
+	 */
+	public RateLimiter maxWaitMillis(long maxWaitMillis) {
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(maxWaitMillis, 0));
+		return this;
+	}
+
+	/**
+	 * 获取适用于某个请求的令牌桶
+	 * @param host 主机
+	 * @param tag 任务标签，可为 null
+	 * @return 令牌桶，不适用时返回 null
+	 */
+	public Bucket bucket(String host, String tag) {
+		switch (scope) {
+		case HOST:
+			return hostBuckets.computeIfAbsent(host, (String key) -> new Bucket(key));
+		case TAG:
+			if (tag == null || !matches(tag)) {
+				return null;
+			}
+			break;
+		default:
+		}
+		Bucket bucket = this.bucket;
+		if (bucket == null) {
+			synchronized (this) {
+				if (this.bucket == null) {
+					this.bucket = new Bucket(tagPrefix != null ? tagPrefix : "*");
+				}
+				bucket = this.bucket;
+			}
+		}
+		return bucket;
+	}
+
+	private boolean matches(String tag) {
+		for (String segment : tag.split("\\.")) {
+			if (segment.startsWith(tagPrefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 令牌桶（以理论到达时间实现，申请即预订，先申请先放行）
+	 */
+	public class Bucket {
+
+		private final String key;
+		// 理论到达时间
+		private long tat = System.nanoTime();
+		// 服务端要求的更慢的间隔及其有效期
+		private long slowIntervalNanos;
+		private long slowUntil;
+
+		Bucket(String key) {
+			this.key = key;
+		}
+
+		/**
+		 * 预订一个令牌
+		 * @return 需要等待的时间（纳秒），小于 0 表示超过最大等待时间，未预订
+		 */
+		public synchronized long reserve() {
+			long now = System.nanoTime();
+			long interval = interval(now);
+			long newTat = Math.max(tat, now) + interval;
+			long wait = Math.max(newTat - now - burst * interval, 0);
+			if (wait > maxWaitNanos) {
+				return -1;
+			}
+			tat = newTat;
+			return wait;
+		}
+
+		/**
+		 * 归还一个已预订但未使用的令牌
+		 */
+		public synchronized void unreserve() {
+			tat -= interval(System.nanoTime());
+		}
+
+		/**
+		 * 根据响应头调整速率
+		 * @param response 响应
+		 */
+		public void adapt(Response response) {
+			long now = System.nanoTime();
+			long pause = retryAfterNanos(response.header("Retry-After"));
+			String remaining = response.header("X-RateLimit-Remaining");
+			long reset = resetNanos(response.header("X-RateLimit-Reset"));
+			if (remaining != null && reset > 0) {
+				try {
+					long left = Long.parseLong(remaining.trim());
+					if (left <= 0) {
+						pause = Math.max(pause, reset);
+					} else {
+						synchronized (this) {
+							slowIntervalNanos = reset / left;
+							slowUntil = now + reset;
+						}
+					}
+				} catch (NumberFormatException ignore) { }
+			}
+			if (pause > 0) {
+				synchronized (this) {
+					tat = Math.max(tat, now + pause + (burst - 1) * interval(now));
+				}
+			}
+		}
+
+		private long interval(long now) {
+			if (slowUntil - now > 0) {
+				return Math.max(intervalNanos, slowIntervalNanos);
+			}
+			return intervalNanos;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+	}
+
+	/**
+	 * 解析 Retry-After 响应头，支持秒数与 HTTP 日期两种格式
+	 * @param value 响应头的值，可为 null
+	 * @return 需等待的纳秒数，无法解析时返回 0
+	 */
+	public static long retryAfterNanos(String value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+		} catch (NumberFormatException e) {
+			Date date = HttpDate.parse(value);
+			if (date != null) {
+				return TimeUnit.MILLISECONDS.toNanos(Math.max(date.getTime() - System.currentTimeMillis(), 0));
+			}
+		}
+		return 0;
+	}
+
+	static long resetNanos(String value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			long reset = Long.parseLong(value.trim());
+			// 较大的值视为 Unix 时间戳（秒），否则为剩余秒数
+			if (reset > 1_000_000_000L) {
+				reset -= System.currentTimeMillis() / 1000;
+			}
+			return TimeUnit.SECONDS.toNanos(Math.max(reset, 0));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.ejlchina.okhttps;
+
+import java.io.IOException;
+
+/**
+ * 请求因超出限制（并发、速率等）被拒绝时的异常
+ * @since 2.0.0
+ */
+public class RejectedException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RejectedException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.ejlchina.okhttps;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import com.ejlchina.okhttps.internal.AsyncHttpTask;
+import com.ejlchina.okhttps.internal.HttpClient;
+import com.ejlchina.okhttps.internal.HttpException;
+import com.ejlchina.okhttps.internal.SyncHttpTask;
+import com.ejlchina.okhttps.internal.UrlTemplate;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+
+/**
+ * 请求原型
+ * 用于大量只有参数不同的请求：URL 模板、请求头、请求体类型与编码在冻结时只计算一次，
+ * 由原型派生的任务只保存各自追加的部分。冻结后原型不可再修改，可被多个线程共享
+ * <pre>
+ * RequestPrototype proto = http.prototype("/users/{id}")
+ *         .addHeader("Token", token)
+ *         .bodyType(OkHttps.JSON)
+ *         .freeze();
+ * proto.sync().addPathPara("id", 1).get();
+ * </pre>
+ * @since 2.0.0
+ */
+public class RequestPrototype {
+
+    private final HttpClient httpClient;
+    private final String url;
+    private final Headers.Builder headersBuilder = new Headers.Builder();
+    private String bodyType;
+    private Charset charset;
+
+    private volatile boolean frozen = false;
+    private UrlTemplate urlTemplate;
+    private Headers headers;
+    private MediaType mediaType;
+
+    public RequestPrototype(HttpClient httpClient, String url) {
+        this.httpClient = httpClient;
+        this.url = url;
+        this.bodyType = httpClient.bodyType();
+        this.charset = httpClient.charset();
+    }
+
+    /**
+     * 添加请求头
+     * @param name 请求头名
+     * @param value 请求头值
+     * @return RequestPrototype
+     */
+    public RequestPrototype addHeader(String name, String value) {
+        assertNotFrozen();
+        if (name != null && value != null) {
+            headersBuilder.set(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 添加请求头
+     * @param headers 请求头集合
+     * @return RequestPrototype
+     */
+    public RequestPrototype addHeader(Map<String, String> headers) {
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                addHeader(entry.getKey(), entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 设置请求体的类型，如：form、json、xml、protobuf 等
+     * @param type 请求类型
+     * @return RequestPrototype
+     */
+    public RequestPrototype bodyType(String type) {
+        assertNotFrozen();
+        if (type != null) {
+            this.bodyType = type;
+        }
+        return this;
+    }
+
+    /**
+     * 设置请求体的编码格式
+     * @param charset 编码格式
+     * @return RequestPrototype
+     */
+    public RequestPrototype charset(Charset charset) {
+        assertNotFrozen();
+        if (charset != null) {
+            this.charset = charset;
+        }
+        return this;
+    }
+
+    /**
+     * 冻结原型，预先解析 URL 模板、构建请求头与请求体的媒体类型
+     * 派生任务时若尚未冻结会自动冻结
+     * @return RequestPrototype
+     */
+    public RequestPrototype freeze() {
+        // 每次派生任务都会调用，已冻结时不加锁
+        if (frozen) {
+            return this;
+        }
+        synchronized (this) {
+            if (!frozen) {
+                urlTemplate = httpClient.urlTemplate(url);
+                headers = headersBuilder.build();
+                if (!OkHttps.FORM.equalsIgnoreCase(bodyType)) {
+                    mediaType = httpClient.executor().mediaType(bodyType, charset);
+                }
+                frozen = true;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 由原型派生一个同步请求任务
+     * @return 同步HTTP任务
+     */
+    public SyncHttpTask sync() {
+        return new SyncHttpTask(httpClient, freeze());
+    }
+
+    /**
+     * 由原型派生一个异步请求任务
+     * @return 异步HTTP任务
+     */
+    public AsyncHttpTask async() {
+        return new AsyncHttpTask(httpClient, freeze());
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getBodyType() {
+        return bodyType;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return 预先解析的 URL 模板，冻结前为 null
+     */
+    public UrlTemplate getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    /**
+     * @return 预先构建的请求头，冻结前为 null
+     */
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return 预先解析的请求体媒体类型，表单类型或冻结前为 null
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    private void assertNotFrozen() {
+        if (frozen) {
+            throw new HttpException("请求原型已冻结，不能再修改！");
+        }
+    }
+
+}
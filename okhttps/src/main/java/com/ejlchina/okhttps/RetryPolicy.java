@@ -0,0 +1,176 @@
+package com.ejlchina.okhttps;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.ejlchina.okhttps.HttpResult.State;
+
+/**
+ * 重试策略
+ * 按失败状态或响应状态码重试，默认只重试幂等方法；重试间隔为带全抖动的指数退避，
+ * 且受每个主机的重试预算限制（令牌桶），以免在服务恢复期间放大流量
+ * @since 2.0.0
+ */
+public class RetryPolicy {
+
+	private final int maxRetries;
+	private long baseDelayMillis = 100;
+	private long maxDelayMillis = 10000;
+	private Set<State> states = new HashSet<>(Arrays.asList(State.TIMEOUT, State.NETWORK_ERROR));
+	private Set<Integer> statusCodes = new HashSet<>(Arrays.asList(502, 503, 504));
+	private Set<String> methods = new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS"));
+	private double budget = 0.1;
+	private double maxTokens = 10;
+
+	private final Map<String, double[]> hostTokens = new ConcurrentHashMap<>();
+
+	private RetryPolicy(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @param maxRetries 最大重试次数
+	 * @return RetryPolicy
+	 */
+	public static RetryPolicy of(int maxRetries) {
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException("maxRetries 不能小于 0");
+		}
+		return new RetryPolicy(maxRetries);
+	}
+
+	/**
+	 * 设置退避参数，第 n 次重试的间隔在 [0, min(maxDelay, baseDelay * 2^n)) 之间随机
+	 * @param baseDelayMillis 基础间隔（毫秒），默认 100
+	 * @param maxDelayMillis 最大间隔（毫秒），默认 10000
+	 * @return RetryPolicy
+	 */
+	public RetryPolicy backoff(long baseDelayMillis, long maxDelayMillis) {
+		this.baseDelayMillis = Math.max(baseDelayMillis, 0);
+		this.maxDelayMillis = Math.max(maxDelayMillis, this.baseDelayMillis);
+		return this;
+	}
+
+	/**
+	 * 设置需要重试的失败状态，默认 TIMEOUT 与 NETWORK_ERROR
+	 * @param states 状态
+	 * @return RetryPolicy
+	 */
+	public RetryPolicy retryOn(State... states) {
+		this.states = new HashSet<>(Arrays.asList(states));
+		return this;
+	}
+
+	/**
+	 * 设置需要重试的响应状态码，默认 502、503 与 504
+	 * @param codes 状态码
+	 * @return RetryPolicy
+	 */
+	public RetryPolicy retryOnStatus(Integer... codes) {
+		this.statusCodes = new HashSet<>(Arrays.asList(codes));
+		return this;
+	}
+
+	/**
+	 * 设置可以重试的请求方法，默认 GET、HEAD、PUT、DELETE 与 OPTIONS
+	 * @param methods 请求方法
+	 * @return RetryPolicy
+	 */
+	public RetryPolicy methods(String... methods) {
+		this.methods = new HashSet<>();
+		for (String method : methods) {
+			this.methods.add(method.toUpperCase());
+		}
+		return this;
+	}
+
+	/**
+	 * 设置重试预算：每个请求为其主机积累 budget 个令牌，每次重试消耗一个，
+	 * 令牌最多积累 maxTokens 个（初始已满）
+	 * @param budget 每个请求积累的令牌数，默认 0.1，即长期来看重试不超过请求数的 10%
+	 * @param maxTokens 令牌上限，默认 10
+	 * @return RetryPolicy
+	 */
+	public RetryPolicy budget(double budget, double maxTokens) {
+		this.budget = Math.max(budget, 0);
+		this.maxTokens = Math.max(maxTokens, 1);
+		return this;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * @param method 请求方法
+	 * @return 该方法的请求是否可以重试
+	 */
+	public boolean canRetry(String method) {
+		return maxRetries > 0 && methods.contains(method);
+	}
+
+	/**
+	 * @param state 失败状态
+	 * @return 是否应该重试
+	 */
+	public boolean shouldRetry(State state) {
+		return states.contains(state);
+	}
+
+	/**
+	 * @param status 响应状态码
+	 * @return 是否应该重试
+	 */
+	public boolean shouldRetry(int status) {
+		return statusCodes.contains(status);
+	}
+
+	/**
+	 * 计算第 retries 次重试前的退避间隔（全抖动）
+	 * @param retries 重试次数，从 1 开始
+	 * @return 间隔（毫秒）
+	 */
+	public long backoffMillis(int retries) {
+		long ceiling = baseDelayMillis << Math.min(retries - 1, 30);
+		if (ceiling <= 0 || ceiling > maxDelayMillis) {
+			ceiling = maxDelayMillis;
+		}
+		return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling) : 0;
+	}
+
+	/**
+	 * 记录一个请求，为其主机积累令牌
+	 * @param host 主机
+	 */
+	public void onRequest(String host) {
+		double[] tokens = tokens(host);
+		synchronized (tokens) {
+			tokens[0] = Math.min(maxTokens, tokens[0] + budget);
+		}
+	}
+
+	/**
+	 * 尝试获取一次重试的令牌
+	 * @param host 主机
+	 * @return 预算是否允许重试
+	 */
+	public boolean tryRetry(String host) {
+		double[] tokens = tokens(host);
+		synchronized (tokens) {
+			if (tokens[0] < 1) {
+				return false;
+			}
+			tokens[0] -= 1;
+			return true;
+		}
+	}
+
+	private double[] tokens(String host) {
+		return hostTokens.computeIfAbsent(host, (String key) -> new double[] { maxTokens });
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.ejlchina.okhttps;
+
+import java.io.IOException;
+
+/**
+ * 流式请求体在写出时序列化失败的异常，属于请求本身的错误，不会被重试
+ * @since 2.0.0
+ */
+public class SerializeException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public SerializeException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
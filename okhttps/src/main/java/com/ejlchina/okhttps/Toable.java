@@ -1,10 +1,17 @@
 package com.ejlchina.okhttps;
 
+import com.ejlchina.okhttps.internal.TreeCursor;
 import okio.ByteString;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface Toable {
 
@@ -38,11 +45,29 @@ public interface Toable {
      */
     Mapper toMapper();
 
+    /**
+     * @since 2.0.0
+     * @param type 消息类型，如 json、xml，只使用与之匹配的转换器
+     * @return 消息体转 Mapper 对象，默认忽略消息类型
+     */
+    default Mapper toMapper(String type) {
+        return toMapper();
+    }
+
     /**
      * @return 消息体转 Array 数组（不想定义 Java Bean 时使用）
      */
     Array toArray();
 
+    /**
+     * @since 2.0.0
+     * @param type 消息类型，如 json、xml，只使用与之匹配的转换器
+     * @return 消息体转 Array 数组，默认忽略消息类型
+     */
+    default Array toArray(String type) {
+        return toArray();
+    }
+
     /**
      * @param <T> 目标泛型
      * @param type 目标类型
@@ -50,6 +75,17 @@ public interface Toable {
      */
     <T> T toBean(Class<T> type);
 
+    /**
+     * @since 2.0.0
+     * @param <T> 目标泛型
+     * @param type 目标类型
+     * @param msgType 消息类型，如 json、xml，只使用与之匹配的转换器
+     * @return 报文体转JavaBean，默认忽略消息类型
+     */
+    default <T> T toBean(Class<T> type, String msgType) {
+        return toBean(type);
+    }
+
     /**
      * @param <T> 目标泛型
      * @param type 目标类型
@@ -57,4 +93,97 @@ public interface Toable {
      */
     <T> List<T> toList(Class<T> type);
 
+    /**
+     * @since 2.0.0
+     * @param <T> 目标泛型
+     * @param type 目标类型
+     * @param msgType 消息类型，如 json、xml，只使用与之匹配的转换器
+     * @return 报文体转JavaBean列表，默认忽略消息类型
+     */
+    default <T> List<T> toList(Class<T> type, String msgType) {
+        return toList(type);
+    }
+
+    /**
+     * @since 2.0.0
+     * 逐个解析数组元素，内存占用与数组大小无关，迭代结束后自动关闭响应
+     * 提前放弃迭代时需调用 {@link CloseableIterator#close()}
+     * 默认实现先解析为完整的列表
+     * @param <T> 目标泛型
+     * @param type 目标类型
+     * @return 可关闭的迭代器
+     */
+    default <T> CloseableIterator<T> toIterator(Class<T> type) {
+        List<T> list = toList(type);
+        Iterator<T> it = list != null ? list.iterator() : Collections.emptyIterator();
+        return new CloseableIterator<T>() {
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return it.next();
+            }
+
+            @Override
+            public void close() {}
+
+        };
+    }
+
+    /**
+     * @since 2.0.0
+     * 逐个解析数组元素的流，内存占用与数组大小无关，流关闭时关闭响应
+     * 建议在 try-with-resources 中使用
+     * @param <T> 目标泛型
+     * @param type 目标类型
+     * @return 元素流
+     */
+    default <T> Stream<T> toStream(Class<T> type) {
+        CloseableIterator<T> iterator = toIterator(type);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    /**
+     * @since 2.0.0
+     * 流式提取路径上的值，不构建完整的对象树，如 data.total
+     * @param path 路径
+     * @return 第一个匹配的值，没有则返回 null
+     */
+    default Object extract(String path) {
+        return extract(path, Object.class);
+    }
+
+    /**
+     * @since 2.0.0
+     * 流式提取路径上的值，不构建完整的对象树，如 data.total
+     * @param <T> 目标泛型
+     * @param path 路径
+     * 默认实现先将报文完整解析为对象树
+     * @param type 目标类型
+     * @return 第一个匹配的值，没有则返回 null
+     */
+    default <T> T extract(String path, Class<T> type) {
+        JsonPath.Target<T> target = new JsonPath.Target<>(JsonPath.compile(path), type, true);
+        return TreeCursor.extract(toBean(Object.class), target).getValue();
+    }
+
+    /**
+     * @since 2.0.0
+     * 流式提取路径上的所有值，不构建完整的对象树，如 data.items[*].id
+     * @param <T> 目标泛型
+     * @param path 路径，可含通配符 *
+     * 默认实现先将报文完整解析为对象树
+     * @param type 目标类型
+     * @return 所有匹配的值
+     */
+    default <T> List<T> extractList(String path, Class<T> type) {
+        JsonPath.Target<T> target = new JsonPath.Target<>(JsonPath.compile(path), type, false);
+        return TreeCursor.extract(toBean(Object.class), target).getValues();
+    }
+
 }
@@ -1,9 +1,13 @@
 package com.ejlchina.okhttps.internal;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
 
 import com.ejlchina.okhttps.Array;
+import com.ejlchina.okhttps.CloseableIterator;
+import com.ejlchina.okhttps.JsonPath;
 import com.ejlchina.okhttps.Mapper;
 import com.ejlchina.okhttps.MsgConvertor;
 import com.ejlchina.okhttps.Toable;
@@ -18,36 +22,115 @@ public abstract class AbstractBody implements Toable {
 		this.charset = charset;
 	}
 
+	/**
+	 * @since 2.0.0
+	 * @return 消息类型，如 json、xml，未知时返回 null
+	 */
+	protected String msgType() {
+		return null;
+	}
+
 	@Override
 	public Mapper toMapper() {
-		if (taskExecutor == null) {
-			throw new IllegalStateException("没有 taskExecutor，不可做 Mapper 转换！");
-		}
-		return taskExecutor.doMsgConvert((MsgConvertor c) -> c.toMapper(toByteStream(), charset));
+		checkExecutor("Mapper");
+		return convert(msgType(), (MsgConvertor c) -> c.toMapper(toByteStream(), charset));
+	}
+
+	@Override
+	public Mapper toMapper(String type) {
+		checkExecutor("Mapper");
+		return taskExecutor.doMsgConvert(type, (MsgConvertor c) -> c.toMapper(toByteStream(), charset)).data;
 	}
 
 	@Override
 	public Array toArray() {
-		if (taskExecutor == null) {
-			throw new IllegalStateException("没有 taskExecutor，不可做 Array 转换！");
-		}
-		return taskExecutor.doMsgConvert((MsgConvertor c) -> c.toArray(toByteStream(), charset));
+		checkExecutor("Array");
+		return convert(msgType(), (MsgConvertor c) -> c.toArray(toByteStream(), charset));
+	}
+
+	@Override
+	public Array toArray(String type) {
+		checkExecutor("Array");
+		return taskExecutor.doMsgConvert(type, (MsgConvertor c) -> c.toArray(toByteStream(), charset)).data;
 	}
 
 	@Override
 	public <T> T toBean(Class<T> type) {
-		if (taskExecutor == null) {
-			throw new IllegalStateException("没有 taskExecutor，不可做 Bean 转换！");
-		}
-		return taskExecutor.doMsgConvert((MsgConvertor c) -> c.toBean(type, toByteStream(), charset));
+		checkExecutor("Bean");
+		return convert(msgType(), (MsgConvertor c) -> c.toBean(type, toByteStream(), charset));
+	}
+
+	@Override
+	public <T> T toBean(Class<T> type, String msgType) {
+		checkExecutor("Bean");
+		return taskExecutor.doMsgConvert(msgType, (MsgConvertor c) -> c.toBean(type, toByteStream(), charset)).data;
 	}
 
 	@Override
 	public <T> List<T> toList(Class<T> type) {
+		checkExecutor("List");
+		return convert(msgType(), (MsgConvertor c) -> c.toList(type, toByteStream(), charset));
+	}
+
+	@Override
+	public <T> List<T> toList(Class<T> type, String msgType) {
+		checkExecutor("List");
+		return taskExecutor.doMsgConvert(msgType, (MsgConvertor c) -> c.toList(type, toByteStream(), charset)).data;
+	}
+
+	@Override
+	public <T> CloseableIterator<T> toIterator(Class<T> type) {
+		checkExecutor("Iterator");
+		return streamConvertor().toIterator(type, toByteStream(), charset);
+	}
+
+	@Override
+	public <T> T extract(String path, Class<T> type) {
+		return extract(new JsonPath.Target<>(JsonPath.compile(path), type, true)).getValue();
+	}
+
+	@Override
+	public <T> List<T> extractList(String path, Class<T> type) {
+		return extract(new JsonPath.Target<>(JsonPath.compile(path), type, false)).getValues();
+	}
+
+	private <T> JsonPath.Target<T> extract(JsonPath.Target<T> target) {
+		checkExecutor("Path");
+		MsgConvertor convertor = streamConvertor();
+		// 提取完成后可能尚未读完报文，关闭输入流以释放响应
+		try (InputStream in = toByteStream()) {
+			convertor.extract(in, charset, target);
+		} catch (IOException e) {
+			throw new HttpException("关闭报文体出错", e);
+		}
+		return target;
+	}
+
+	// 流只能读取一次，无法逐个尝试转换器，优先选择与消息类型匹配的转换器
+	private MsgConvertor streamConvertor() {
+		String msgType = msgType();
+		MsgConvertor convertor = msgType != null ? taskExecutor.matchConvertor(msgType) : null;
+		if (convertor == null) {
+			convertor = taskExecutor.matchConvertor(null);
+		}
+		if (convertor == null) {
+			throw new HttpException("没有可用的转换器！");
+		}
+		return convertor;
+	}
+
+	private void checkExecutor(String target) {
 		if (taskExecutor == null) {
-			throw new IllegalStateException("没有 taskExecutor，不可做 List 转换！");
+			throw new IllegalStateException("没有 taskExecutor，不可做 " + target + " 转换！");
 		}
-		return taskExecutor.doMsgConvert((MsgConvertor c) -> c.toList(type, toByteStream(), charset));
 	}
-	
+
+	// 消息类型有匹配的转换器时只交给它们解析，未知时才依次尝试所有转换器
+	private <V> V convert(String type, TaskExecutor.ConvertFunc<V> callable) {
+		if (type != null && taskExecutor.matchConvertor(type) != null) {
+			return taskExecutor.doMsgConvert(type, callable).data;
+		}
+		return taskExecutor.doMsgConvert(callable);
+	}
+
 }
@@ -1,7 +1,13 @@
 package com.ejlchina.okhttps.internal;
 
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.ejlchina.okhttps.*;
 import com.ejlchina.okhttps.HttpResult.State;
@@ -32,6 +38,10 @@ public class AsyncHttpTask extends HttpTask<AsyncHttpTask> {
 		super(client, url);
 	}
 
+	public AsyncHttpTask(HttpClient client, RequestPrototype prototype) {
+		super(client, prototype);
+	}
+
 
 	/**
 	 * 设置请求执行异常后的回调函数，设置后，相关异常将不再向上抛出
@@ -123,122 +133,201 @@ public class AsyncHttpTask extends HttpTask<AsyncHttpTask> {
      * @return HttpCall
      */
     public HttpCall request(String method) {
+    	return doRequest(method);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 GET 请求（Rest：读取资源，幂等）
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> getFuture() {
+        return requestFuture(HTTP.GET);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 HEAD 请求（Rest：读取资源头信息，幂等）
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> headFuture() {
+        return requestFuture(HTTP.HEAD);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 POST 请求（Rest：创建资源，非幂等）
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> postFuture() {
+        return requestFuture(HTTP.POST);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 PUT 请求（Rest：更新资源，幂等）
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> putFuture() {
+        return requestFuture(HTTP.PUT);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 PATCH 请求（Rest：更新资源，部分更新，幂等）
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> patchFuture() {
+        return requestFuture(HTTP.PATCH);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 DELETE 请求（Rest：删除资源，幂等）
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> deleteFuture() {
+        return requestFuture(HTTP.DELETE);
+    }
+
+    /**
+     * @since 2.0.0
+     * 发起 HTTP 请求，返回的 Future 直接在 OkHttp 回调中完成，不阻塞任何线程。
+     * 请求异常时，异常包含在 HttpResult 中，不会向上抛出；取消 Future 将取消该请求
+     * @param method 请求方法
+     * @return CompletableFuture
+     */
+    public CompletableFuture<HttpResult> requestFuture(String method) {
+        nothrow = true;
+        return doRequest(method).future;
+    }
+
+    private AsyncHttpCall doRequest(String method) {
     	if (method == null || method.isEmpty()) {
     		throw new IllegalArgumentException("HTTP 请求方法 method 不可为空！");
     	}
-    	PreHttpCall call = new PreHttpCall();
+    	AsyncHttpCall call = new AsyncHttpCall();
 		registeTagTask(call);
+		startDeadline(() -> {
+			call.cancel();
+			// 已响应时，中断响应体的传输
+			Call okCall = call.call;
+			if (okCall != null) {
+				okCall.cancel();
+			}
+		});
     	httpClient.preprocess(this, () -> {
-    		synchronized (call) {
+    		call.lock.lock();
+    		try {
     			if (call.canceled) {
 					removeTagTask();
+					closeSources();
         		} else {
-					call.setCall(executeCall(prepareCall(method)));
+					executeCall(call, prepareCall(method));
 				}
+			} finally {
+    			call.lock.unlock();
 			}
     	}, skipPreproc, skipSerialPreproc);
     	return call;
     }
     
-    
-    class PreHttpCall implements HttpCall {
 
-		HttpCall call;
+    class AsyncHttpCall implements HttpCall {
+
+		Call call;
 		boolean canceled = false;
-    	CountDownLatch latch = new CountDownLatch(1);
+		HttpResult result;
+		HttpFuture future = new HttpFuture(this);
+		// 使用 Lock 而非 synchronized，避免在虚拟线程上钉住载体线程
+		final Lock lock = new ReentrantLock();
 
 		@Override
-		public synchronized boolean cancel() {
-			canceled = call == null || call.cancel();
-			latch.countDown();
-			return canceled;
+		public boolean cancel() {
+			lock.lock();
+			try {
+				if (result != null) {
+					return false;
+				}
+				canceled = true;
+				if (call != null) {
+					// 取消结果将由 OkHttp 回调设置
+					call.cancel();
+				} else {
+					setResult(new RealHttpResult(AsyncHttpTask.this,
+							isDeadlineExceeded() ? State.TIMEOUT : State.CANCELED));
+				}
+				return true;
+			} finally {
+				lock.unlock();
+			}
 		}
 
 		@Override
 		public boolean isDone() {
-			if (call != null) {
-				return call.isDone();
-			}
-			return canceled;
+			return future.isDone();
 		}
 
 		@Override
 		public boolean isCanceled() {
-			return canceled;
-		}
-
-		void setCall(HttpCall call) {
-			this.call = call;
-			latch.countDown();
+			return canceled || future.isCancelled();
 		}
 
 		@Override
 		public HttpResult getResult() {
-			if (!timeoutAwait(latch)) {
+			try {
+				return future.get(remainingMillis(), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
 				cancel();
 				return timeoutResult();
-			}
-			if (canceled || call == null) {
+			} catch (CancellationException e) {
 				return new RealHttpResult(AsyncHttpTask.this, State.CANCELED);
+			} catch (InterruptedException e) {
+				throw new HttpException("超时", e);
+			} catch (ExecutionException e) {
+				throw new HttpException("执行异常", e.getCause());
 			}
-			return call.getResult();
 		}
 
-    }
-
-    class OkHttpCall implements HttpCall {
-
-		Call call;
-		HttpResult result;
-		CountDownLatch latch = new CountDownLatch(1);
-
-		OkHttpCall(Call call) {
-			this.call = call;
-		}
-
-		@Override
-		public synchronized boolean cancel() {
-			if (result == null) {
-				call.cancel();
-				return true;
+		void setResult(HttpResult result) {
+			cancelDeadline();
+			lock.lock();
+			try {
+				this.result = result;
+			} finally {
+				lock.unlock();
 			}
-			return false;
+			future.complete(result);
 		}
 
-		@Override
-		public boolean isDone() {
-			return result != null;
-		}
+    }
 
-		@Override
-		public boolean isCanceled() {
-			return call.isCanceled();
+    static class HttpFuture extends CompletableFuture<HttpResult> {
+
+		AsyncHttpCall httpCall;
+
+		HttpFuture(AsyncHttpCall httpCall) {
+			this.httpCall = httpCall;
 		}
 
 		@Override
-		public HttpResult getResult() {
-			if (result == null) {
-				if (!timeoutAwait(latch)) {
-					cancel();
-					return timeoutResult();
-				}
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean canceled = super.cancel(mayInterruptIfRunning);
+			if (canceled) {
+				httpCall.cancel();
 			}
-			return result;
-		}
-
-		void setResult(HttpResult result) {
-			this.result = result;
-			latch.countDown();
+			return canceled;
 		}
 
     }
 
 	
-    private HttpCall executeCall(Call call) {
-        OkHttpCall httpCall = new OkHttpCall(call);
+    private void executeCall(AsyncHttpCall httpCall, Call call) {
+        httpCall.call = call;
         call.enqueue(new Callback() {
             @Override
             public void onFailure(Call call, IOException error) {
+				cancelDeadline();
 				State state = toState(error, false);
 				HttpResult result = new RealHttpResult(AsyncHttpTask.this, state, error);
 				onCallback(httpCall, result, () -> {
@@ -254,7 +343,7 @@ public class AsyncHttpTask extends HttpTask<AsyncHttpTask> {
             @Override
             public void onResponse(Call call, Response response) throws IOException {
             	TaskExecutor executor = httpClient.executor();
-				HttpResult result = new RealHttpResult(AsyncHttpTask.this, response, executor);
+				HttpResult result = new RealHttpResult(AsyncHttpTask.this, deadlineResponse(response), executor);
 				onCallback(httpCall, result, () -> {
 					executor.executeOnComplete(AsyncHttpTask.this, onComplete, State.RESPONSED, cOnIO);
 					executor.executeOnResponse(AsyncHttpTask.this, onResponse, result, rOnIO);
@@ -262,18 +351,28 @@ public class AsyncHttpTask extends HttpTask<AsyncHttpTask> {
             }
 
         });
-		return httpCall;
     }
 
-	@SuppressWarnings("all")
-    private void onCallback(OkHttpCall httpCall, HttpResult result, Runnable runnable) {
-		synchronized (httpCall) {
+    private void onCallback(AsyncHttpCall httpCall, HttpResult result, Runnable runnable) {
+		boolean canceled;
+		httpCall.lock.lock();
+		try {
 			removeTagTask();
-			if (httpCall.isCanceled() || result.getState() == State.CANCELED) {
-				httpCall.setResult(new RealHttpResult(AsyncHttpTask.this, State.CANCELED));
-				return;
+			closeSources();
+			canceled = httpCall.isCanceled() || result.getState() == State.CANCELED;
+			if (canceled) {
+				result.close();
+				// 截止时间到期时也是通过取消实现的
+				result = new RealHttpResult(AsyncHttpTask.this,
+						isDeadlineExceeded() ? State.TIMEOUT : State.CANCELED);
 			}
-			httpCall.setResult(result);
+			httpCall.result = result;
+		} finally {
+			httpCall.lock.unlock();
+		}
+		// 在锁外完成 Future，避免其后续阶段在锁内执行
+		httpCall.future.complete(result);
+		if (!canceled) {
 			runnable.run();
 		}
 	}
@@ -0,0 +1,407 @@
+package com.ejlchina.okhttps.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import com.ejlchina.okhttps.Cancelable;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.HttpResult.State;
+
+
+/**
+ * 批量 Http 请求任务
+ * 以限定的并发数执行一批异步请求，逐个回调结果，并汇总统计信息
+ *
+ * @author Troy.Zhou
+ */
+public class BatchTask {
+
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	private HTTP http;
+	private List<Member> members = new ArrayList<>();
+	private int concurrency;
+	private OnResult onResult;
+
+
+	public BatchTask(HttpClient httpClient) {
+		this(httpClient, httpClient.okClient().dispatcher().getMaxRequestsPerHost());
+	}
+
+	/**
+	 * @param http HTTP 实例
+	 * @param concurrency 默认的并发数
+	 */
+	public BatchTask(HTTP http, int concurrency) {
+		this.http = http;
+		this.concurrency = concurrency;
+	}
+
+
+	/**
+	 * 批量任务的结果回调
+	 */
+	public interface OnResult {
+
+		/**
+		 * 在 IO 线程执行
+		 * @param task 所属的请求任务
+		 * @param result 请求结果，若回调内未消费报文体，须自行关闭
+		 */
+		void on(AsyncHttpTask task, HttpResult result);
+
+	}
+
+	/**
+	 * 设置最大并发数，默认与 OkHttp 调度器的 maxRequestsPerHost 相同
+	 * @param concurrency 最大并发数
+	 * @return BatchTask
+	 */
+	public BatchTask concurrency(int concurrency) {
+		if (concurrency > 0) {
+			this.concurrency = concurrency;
+		}
+		return this;
+	}
+
+	/**
+	 * 设置结果回调，每个请求完成时执行；未设置时，结果将被自动关闭
+	 * @param onResult 结果回调
+	 * @return BatchTask
+	 */
+	public BatchTask setOnResult(OnResult onResult) {
+		this.onResult = onResult;
+		return this;
+	}
+
+	/**
+	 * 添加 GET 请求任务
+	 * @param task 请求任务，须由同一个 HTTP 实例创建
+	 * @return BatchTask
+	 */
+	public BatchTask add(AsyncHttpTask task) {
+		return add(task, HTTP.GET);
+	}
+
+	/**
+	 * 添加请求任务
+	 * @param task 请求任务，须由同一个 HTTP 实例创建
+	 * @param method 请求方法
+	 * @return BatchTask
+	 */
+	public BatchTask add(AsyncHttpTask task, String method) {
+		if (method == null || method.isEmpty()) {
+			throw new IllegalArgumentException("HTTP 请求方法 method 不可为空！");
+		}
+		if (task != null) {
+			members.add(new Member(task, method));
+		}
+		return this;
+	}
+
+	/**
+	 * 以 URL 模板为每个元素添加一个请求任务
+	 * @param <T> 元素类型
+	 * @param url URL 模板
+	 * @param method 请求方法
+	 * @param items 元素集合
+	 * @param preparer 使用元素准备请求任务，如设置路径参数
+	 * @return BatchTask
+	 */
+	public <T> BatchTask add(String url, String method, Iterable<T> items, BiConsumer<AsyncHttpTask, ? super T> preparer) {
+		if (items != null) {
+			for (T item : items) {
+				AsyncHttpTask task = http.async(url);
+				if (preparer != null) {
+					preparer.accept(task, item);
+				}
+				add(task, method);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * 以 URL 模板为每个路径参数值添加一个 GET 请求任务
+	 * @param url URL 模板，如 /users/{id}
+	 * @param name 路径参数名，如 id
+	 * @param values 路径参数值集合
+	 * @return BatchTask
+	 */
+	public BatchTask addPathParas(String url, String name, Iterable<?> values) {
+		return add(url, HTTP.GET, values, (AsyncHttpTask task, Object value) -> task.addPathPara(name, value));
+	}
+
+	/**
+	 * 开始执行批量任务
+	 * @return BatchCall
+	 */
+	public BatchCall start() {
+		BatchCall call = new BatchCall(new ArrayList<>(members), onResult);
+		call.start(concurrency);
+		return call;
+	}
+
+
+	static class Member {
+
+		AsyncHttpTask task;
+		String method;
+
+		Member(AsyncHttpTask task, String method) {
+			this.task = task;
+			this.method = method;
+		}
+
+	}
+
+
+	/**
+	 * 执行中的批量任务
+	 */
+	public class BatchCall implements Cancelable {
+
+		private final String tag = "#batch-" + SEQUENCE.incrementAndGet() + "#";
+		private final List<Member> members;
+		private final OnResult onResult;
+		private final AtomicInteger cursor = new AtomicInteger();
+		// 待启动的并发名额，非零时已有线程在循环中启动任务
+		private final AtomicInteger pending = new AtomicInteger();
+		private final BatchStats stats;
+		private final CompletableFuture<BatchStats> future = new CompletableFuture<>();
+		private volatile boolean canceled = false;
+		// 结果回调抛出的第一个异常
+		private volatile RuntimeException callbackError;
+
+		BatchCall(List<Member> members, OnResult onResult) {
+			this.members = members;
+			this.onResult = onResult;
+			this.stats = new BatchStats(members.size());
+		}
+
+		void start(int concurrency) {
+			if (members.isEmpty()) {
+				future.complete(stats);
+				return;
+			}
+			for (int i = 0; i < concurrency; i++) {
+				release();
+			}
+		}
+
+		// 释放一个并发名额，并启动下一个任务
+		// 同步完成的任务只会增加名额计数，由外层循环继续启动，避免递归过深
+		private void release() {
+			if (pending.getAndIncrement() != 0) {
+				return;
+			}
+			do {
+				launchNext();
+			} while (pending.decrementAndGet() != 0);
+		}
+
+		// 启动下一个任务，没有待启动的任务时返回 false
+		private boolean launchNext() {
+			int index = cursor.getAndIncrement();
+			if (index >= members.size()) {
+				return false;
+			}
+			Member member = members.get(index);
+			if (canceled) {
+				complete(member, new RealHttpResult(member.task, State.CANCELED), 0);
+				return true;
+			}
+			long startAt = System.nanoTime();
+			CompletableFuture<HttpResult> f;
+			try {
+				f = member.task.tag(tag).requestFuture(member.method);
+			} catch (RuntimeException e) {
+				complete(member, new RealHttpResult(member.task, State.EXCEPTION), System.nanoTime() - startAt);
+				release();
+				return true;
+			}
+			if (canceled) {
+				// 与 cancel() 并发启动的任务
+				f.cancel(true);
+			}
+			f.whenComplete((HttpResult result, Throwable error) -> {
+				if (result == null) {
+					result = new RealHttpResult(member.task, State.CANCELED);
+				}
+				complete(member, result, System.nanoTime() - startAt);
+				release();
+			});
+			return true;
+		}
+
+		private void complete(Member member, HttpResult result, long latencyNanos) {
+			try {
+				if (onResult != null) {
+					onResult.on(member.task, result);
+				} else {
+					result.close();
+				}
+			} catch (RuntimeException e) {
+				// 回调异常不影响其它任务的执行，待全部完成后通过 Future 抛出
+				if (callbackError == null) {
+					callbackError = e;
+				}
+			} finally {
+				if (stats.record(result, latencyNanos)) {
+					RuntimeException error = callbackError;
+					if (error != null) {
+						future.completeExceptionally(error);
+					} else {
+						future.complete(stats);
+					}
+				}
+			}
+		}
+
+		/**
+		 * 取消批量任务：未开始的任务不再执行，执行中的任务通过标签取消
+		 * @return 是否取消成功
+		 */
+		@Override
+		public boolean cancel() {
+			if (future.isDone()) {
+				return false;
+			}
+			canceled = true;
+			http.cancel(tag);
+			// 剩余未开始的任务直接以取消状态完成
+			boolean remaining = true;
+			while (remaining) {
+				remaining = launchNext();
+			}
+			return true;
+		}
+
+		/**
+		 * @return 是否已全部执行完成
+		 */
+		public boolean isDone() {
+			return future.isDone();
+		}
+
+		/**
+		 * @return 实时统计信息
+		 */
+		public BatchStats getStats() {
+			return stats;
+		}
+
+		/**
+		 * @return 全部执行完成后以统计信息完成的 Future，若有结果回调抛出异常，则以第一个异常完成
+		 */
+		public CompletableFuture<BatchStats> getFuture() {
+			return future;
+		}
+
+	}
+
+
+	/**
+	 * 批量任务的统计信息
+	 */
+	public static class BatchStats {
+
+		private final int total;
+		private int completed;
+		private int succeeded;
+		private int failed;
+		private int canceled;
+		// 计入耗时的任务数，不含被取消的任务
+		private int timed;
+		private long totalLatencyNanos;
+		private long maxLatencyNanos;
+
+		BatchStats(int total) {
+			this.total = total;
+		}
+
+		// 返回是否已全部完成
+		synchronized boolean record(HttpResult result, long latencyNanos) {
+			State state = result.getState();
+			if (state == State.CANCELED) {
+				canceled++;
+				return ++completed == total;
+			}
+			if (state == State.RESPONSED && result.isSuccessful()) {
+				succeeded++;
+			} else {
+				failed++;
+			}
+			timed++;
+			totalLatencyNanos += latencyNanos;
+			maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+			return ++completed == total;
+		}
+
+		/**
+		 * @return 任务总数
+		 */
+		public int getTotal() {
+			return total;
+		}
+
+		/**
+		 * @return 已完成的任务数（包含成功、失败与取消）
+		 */
+		public synchronized int getCompleted() {
+			return completed;
+		}
+
+		/**
+		 * @return 成功的任务数（响应状态码在 [200..300) 之间）
+		 */
+		public synchronized int getSucceeded() {
+			return succeeded;
+		}
+
+		/**
+		 * @return 失败的任务数（包含异常与非成功状态码）
+		 */
+		public synchronized int getFailed() {
+			return failed;
+		}
+
+		/**
+		 * @return 被取消的任务数
+		 */
+		public synchronized int getCanceled() {
+			return canceled;
+		}
+
+		/**
+		 * @return 已完成任务的平均耗时（毫秒），不含被取消的任务
+		 */
+		public synchronized long getAvgLatency() {
+			if (timed == 0) {
+				return 0;
+			}
+			return totalLatencyNanos / timed / 1_000_000;
+		}
+
+		/**
+		 * @return 已完成任务的最大耗时（毫秒），不含被取消的任务
+		 */
+		public synchronized long getMaxLatency() {
+			return maxLatencyNanos / 1_000_000;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return "BatchStats [total=" + total + ", completed=" + completed + ", succeeded=" + succeeded
+					+ ", failed=" + failed + ", canceled=" + canceled + ", avgLatency=" + getAvgLatency()
+					+ ", maxLatency=" + getMaxLatency() + "]";
+		}
+
+	}
+
+}
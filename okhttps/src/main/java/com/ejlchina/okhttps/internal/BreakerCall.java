@@ -0,0 +1,135 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+
+import com.ejlchina.okhttps.CircuitBreaker;
+import com.ejlchina.okhttps.CircuitOpenException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * 受熔断器保护的调用
+ * 熔断器放行后才创建 OkHttp 的调用，否则直接以 {@link CircuitOpenException} 失败，不进入调度器
+ * @since 2.0.0
+ */
+public class BreakerCall implements Call {
+
+    private final OkHttpClient okClient;
+    private final Request request;
+    private final CircuitBreaker breaker;
+    private final String host;
+
+    private volatile Call call;
+    private volatile boolean canceled;
+    private volatile boolean executed;
+
+    public BreakerCall(OkHttpClient okClient, Request request, CircuitBreaker breaker) {
+        this.okClient = okClient;
+        this.request = request;
+        this.breaker = breaker;
+        this.host = request.url().host();
+    }
+
+    @Override
+    public Request request() {
+        return request;
+    }
+
+    @Override
+    public Response execute() throws IOException {
+        Call call = acquire();
+        long startAt = System.nanoTime();
+        try {
+            Response response = call.execute();
+            breaker.onResult(host, System.nanoTime() - startAt, response.code() >= 500);
+            return response;
+        } catch (IOException e) {
+            onFailure(call, startAt);
+            throw e;
+        }
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        Call call;
+        try {
+            call = acquire();
+        } catch (IOException e) {
+            responseCallback.onFailure(this, e);
+            return;
+        }
+        long startAt = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                BreakerCall.this.onFailure(call, startAt);
+                responseCallback.onFailure(BreakerCall.this, e);
+            }
+            @Override
+            public void onResponse(Call c, Response response) throws IOException {
+                breaker.onResult(host, System.nanoTime() - startAt, response.code() >= 500);
+                responseCallback.onResponse(BreakerCall.this, response);
+            }
+        });
+    }
+
+    private Call acquire() throws IOException {
+        executed = true;
+        if (canceled) {
+            throw new IOException("Canceled");
+        }
+        if (!breaker.tryAcquire(host)) {
+            throw new CircuitOpenException(host);
+        }
+        Call call = okClient.newCall(request);
+        this.call = call;
+        if (canceled) {
+            call.cancel();
+        }
+        return call;
+    }
+
+    private void onFailure(Call call, long startAt) {
+        if (call.isCanceled()) {
+            breaker.onIgnored(host);
+        } else {
+            breaker.onResult(host, System.nanoTime() - startAt, true);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        Call call = this.call;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return executed;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Timeout timeout() {
+        Call call = this.call;
+        return call != null ? call.timeout() : Timeout.NONE;
+    }
+
+    @Override
+    public Call clone() {
+        return new BreakerCall(okClient, request, breaker);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * 包装一个可能发起多次请求的调用
+ * 同步执行时也通过 {@link #enqueue(Callback)} 调度，当前线程只等待最终结果
+ * @since 2.0.0
+ */
+public abstract class CallWrapper implements Call {
+
+    protected final Call primary;
+
+    protected CallWrapper(Call primary) {
+        this.primary = primary;
+    }
+
+    @Override
+    public Request request() {
+        return primary.request();
+    }
+
+    @Override
+    public Response execute() throws IOException {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+            @Override
+            public void onResponse(Call call, Response response) {
+                future.complete(response);
+            }
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            cancel();
+            throw new InterruptedIOException("Interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return primary.isExecuted();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return primary.timeout();
+    }
+
+    @Override
+    public abstract Call clone();
+
+}
@@ -0,0 +1,66 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * 可与相同的进行中请求合并的调用
+ * @since 2.0.0
+ */
+public class CoalescedCall extends CallWrapper {
+
+    private final SingleFlight singleFlight;
+
+    private volatile SingleFlight.Flight flight;
+    private volatile boolean canceled;
+
+    public CoalescedCall(Call primary, SingleFlight singleFlight) {
+        super(primary);
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        if (canceled) {
+            responseCallback.onFailure(this, new IOException("Canceled"));
+            return;
+        }
+        flight = singleFlight.join(primary, this, new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                responseCallback.onFailure(CoalescedCall.this, e);
+            }
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                responseCallback.onResponse(CoalescedCall.this, response);
+            }
+        });
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        SingleFlight.Flight flight = this.flight;
+        if (flight != null) {
+            // 只退出合并组，其它等待者不受影响
+            Callback callback = flight.remove(this);
+            if (callback != null) {
+                callback.onFailure(this, new IOException("Canceled"));
+            }
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Call clone() {
+        return new CoalescedCall(primary.clone(), singleFlight);
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.ejlchina.okhttps.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 表单编码器
+ * 将 Java Bean 或 Map 直接展开为表单（或查询）参数，每个类的属性访问器只解析一次，
+ * 之后通过 MethodHandle 取值，无需先序列化为 JSON 再解析回来
+ * 集合与数组的元素以逗号连接，null 值的属性被忽略
+ * @since 2.0.0
+ */
+public final class FormEncoder {
+
+	/**
+	 * 参数接收者
+	 */
+	public interface Sink {
+
+		void add(String name, String value);
+
+	}
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final ClassValue<Property[]> PROPERTIES = new ClassValue<Property[]>() {
+		@Override
+		protected Property[] computeValue(Class<?> type) {
+			return resolve(type);
+		}
+	};
+
+	private FormEncoder() {}
+
+	/**
+	 * 编码
+	 * @param source Java Bean 或 Map
+	 * @param dateFormat 日期格式，可为 null
+	 * @param sink 参数接收者
+	 */
+	public static void encode(Object source, String dateFormat, Sink sink) {
+		if (source == null) {
+			return;
+		}
+		if (source instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) source).entrySet()) {
+				String value = format(entry.getValue(), dateFormat);
+				if (entry.getKey() != null && value != null) {
+					sink.add(entry.getKey().toString(), value);
+				}
+			}
+			return;
+		}
+		for (Property property : PROPERTIES.get(source.getClass())) {
+			Object value;
+			try {
+				value = property.getter.invokeExact(source);
+			} catch (Throwable e) {
+				throw new HttpException("读取属性 [" + property.name + "] 失败：" + source.getClass().getName(), e);
+			}
+			String text = format(value, dateFormat);
+			if (text != null) {
+				sink.add(property.name, text);
+			}
+		}
+	}
+
+	/**
+	 * @param source 待编码的对象
+	 * @return 是否为只含简单值（字符串、数字、布尔与字符）的 Map，
+	 * 这样的 Map 无论由哪种转换器处理，编码结果都相同
+	 */
+	public static boolean isFlat(Object source) {
+		if (!(source instanceof Map)) {
+			return false;
+		}
+		for (Object value : ((Map<?, ?>) source).values()) {
+			if (value != null && !(value instanceof CharSequence || value instanceof Number
+					|| value instanceof Boolean || value instanceof Character)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String format(Object value, String dateFormat) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Date && dateFormat != null) {
+			return new SimpleDateFormat(dateFormat).format((Date) value);
+		}
+		if (value instanceof Iterable) {
+			StringBuilder sb = new StringBuilder();
+			for (Object item : (Iterable<?>) value) {
+				append(sb, format(item, dateFormat));
+			}
+			return sb.toString();
+		}
+		if (value.getClass().isArray()) {
+			StringBuilder sb = new StringBuilder();
+			int length = Array.getLength(value);
+			for (int i = 0; i < length; i++) {
+				append(sb, format(Array.get(value, i), dateFormat));
+			}
+			return sb.toString();
+		}
+		return value.toString();
+	}
+
+	private static void append(StringBuilder sb, String item) {
+		if (item != null) {
+			if (sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(item);
+		}
+	}
+
+	private static Property[] resolve(Class<?> type) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		// 以属性名排序，保证参数顺序稳定
+		Map<String, MethodHandle> getters = new TreeMap<>();
+		for (Field field : type.getFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) && accessible(field)) {
+				try {
+					getters.put(field.getName(), lookup.unreflectGetter(field).asType(GETTER_TYPE));
+				} catch (IllegalAccessException ignore) {
+					// 不可访问的属性不参与编码
+				}
+			}
+		}
+		for (Method method : type.getMethods()) {
+			String name = propertyName(method);
+			if (name != null && accessible(method)) {
+				try {
+					getters.put(name, lookup.unreflect(method).asType(GETTER_TYPE));
+				} catch (IllegalAccessException ignore) {
+					// 不可访问的属性不参与编码
+				}
+			}
+		}
+		List<Property> properties = new ArrayList<>(getters.size());
+		for (Map.Entry<String, MethodHandle> entry : getters.entrySet()) {
+			properties.add(new Property(entry.getKey(), entry.getValue()));
+		}
+		return properties.toArray(new Property[0]);
+	}
+
+	// 非公开类的公开成员也需要开放访问
+	private static boolean accessible(AccessibleObject member) {
+		try {
+			member.setAccessible(true);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static String propertyName(Method method) {
+		if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+				|| method.getDeclaringClass() == Object.class) {
+			return null;
+		}
+		String name = method.getName();
+		int prefix;
+		if (name.startsWith("get") && method.getReturnType() != void.class) {
+			prefix = 3;
+		} else if (name.startsWith("is") && method.getReturnType() == boolean.class) {
+			prefix = 2;
+		} else {
+			return null;
+		}
+		if (name.length() == prefix) {
+			return null;
+		}
+		String property = name.substring(prefix);
+		// 与 JavaBeans 规范一致：前两个字母都是大写时保持原样
+		if (property.length() > 1 && Character.isUpperCase(property.charAt(1))) {
+			return property;
+		}
+		return Character.toLowerCase(property.charAt(0)) + property.substring(1);
+	}
+
+	static class Property {
+
+		final String name;
+		final MethodHandle getter;
+
+		Property(String name, MethodHandle getter) {
+			this.name = name;
+			this.getter = getter;
+		}
+
+	}
+
+}
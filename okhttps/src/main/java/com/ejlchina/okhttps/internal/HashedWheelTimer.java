@@ -0,0 +1,303 @@
+package com.ejlchina.okhttps.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 时间轮定时器
+ * 所有延时任务共用一个工作线程，添加与取消都是 O(1)，精度为一个刻度（默认 10 毫秒）。
+ * 工作线程在首次添加任务时启动，空闲一段时间后自动退出。
+ * 到期的任务在工作线程上执行，应尽快返回
+ * @since 2.0.0
+ */
+public class HashedWheelTimer {
+
+    /**
+     * 延时任务的句柄
+     */
+    public interface Timeout {
+
+        /**
+         * 取消任务
+         * @return 任务是否尚未执行且被本次取消
+         */
+        boolean cancel();
+
+        /**
+         * @return 任务是否已执行
+         */
+        boolean isExpired();
+
+    }
+
+    static final int INIT = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    // 工作线程的最长空闲时间
+    static final long IDLE_MILLIS = 60_000;
+    // 每个刻度最多转入的新任务数
+    static final int MAX_TRANSFER = 100_000;
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime = System.nanoTime();
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // 以下字段只由工作线程访问
+    private long tick;
+
+    private Thread worker;
+    private boolean stopped;
+
+    public HashedWheelTimer(String name) {
+        this(name, 10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param name 工作线程名称
+     * @param tickDuration 刻度时长
+     * @param unit 时间单位
+     * @param wheelSize 刻度数，将调整为 2 的幂
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickDuration 与 wheelSize 必须大于 0");
+        }
+        int size = Integer.highestOneBit(Math.min(wheelSize, 1 << 30));
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 添加一个延时任务
+     * @param task 任务
+     * @param delay 延时
+     * @param unit 时间单位
+     * @return 任务句柄
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Entry entry = new Entry(task, elapsed() + Math.max(unit.toNanos(delay), 0));
+        pending.incrementAndGet();
+        added.add(entry);
+        start();
+        return entry;
+    }
+
+    /**
+     * @return 待执行的任务数
+     */
+    public int pendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * 停止定时器，未执行的任务将不再执行
+     */
+    public synchronized void stop() {
+        stopped = true;
+        notifyAll();
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private synchronized void start() {
+        if (stopped) {
+            throw new IllegalStateException("定时器已停止");
+        }
+        if (worker == null) {
+            worker = new Thread(this::run, name);
+            worker.setDaemon(true);
+            worker.start();
+        } else {
+            notifyAll();
+        }
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - startTime;
+    }
+
+    private void run() {
+        tick = elapsed() / tickNanos;
+        while (true) {
+            long sleep = (tick + 1) * tickNanos - elapsed();
+            if (sleep > 0) {
+                if (isStopped()) {
+                    return;
+                }
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            transferAdded();
+            removeCancelled();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+            if (pending.get() == 0 && idle()) {
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * 没有任务时等待，仍无任务则退出
+     * @return 工作线程是否应退出
+     */
+    private boolean idle() {
+        synchronized (this) {
+            if (stopped) {
+                return true;
+            }
+            if (pending.get() == 0) {
+                try {
+                    wait(IDLE_MILLIS);
+                } catch (InterruptedException ignore) { }
+            }
+            if (stopped || pending.get() == 0) {
+                worker = null;
+                return true;
+            }
+        }
+        // 轮上没有任务，直接跳到当前刻度
+        tick = elapsed() / tickNanos;
+        return false;
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < MAX_TRANSFER; i++) {
+            Entry entry = added.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.state.get() == CANCELLED) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long calculated = entry.deadline / tickNanos;
+            entry.remainingRounds = (calculated - tick) / wheel.length;
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(entry);
+        }
+    }
+
+    private void removeCancelled() {
+        Entry entry;
+        while ((entry = cancelled.poll()) != null) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    class Entry implements Timeout {
+
+        final Runnable task;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(INIT);
+        long remainingRounds;
+        Bucket bucket;
+        Entry prev;
+        Entry next;
+
+        Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (state.compareAndSet(INIT, CANCELLED)) {
+                cancelled.add(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        void expire() {
+            if (state.compareAndSet(INIT, EXPIRED)) {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+
+    }
+
+    // 双向链表，只由工作线程访问
+    class Bucket {
+
+        Entry head;
+        Entry tail;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = entry.next = null;
+            entry.bucket = null;
+        }
+
+        void expire() {
+            Entry entry = head;
+            while (entry != null) {
+                Entry next = entry.next;
+                if (entry.remainingRounds <= 0) {
+                    remove(entry);
+                    pending.decrementAndGet();
+                    entry.expire();
+                } else {
+                    entry.remainingRounds--;
+                }
+                entry = next;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ejlchina.okhttps.HedgePolicy;
+import com.ejlchina.okhttps.HttpTask;
+import com.ejlchina.okhttps.TaskListener;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * 对冲调用
+ * 先发送主请求，若在策略给出的延迟内未完成且预算允许，则再发送一个相同的对冲请求，
+ * 先得到响应的请求生效，另一个被取消；某个请求失败时，若另一个仍在进行则等待另一个
+ * @since 2.0.0
+ */
+public class HedgedCall extends CallWrapper {
+
+    private final HttpClient httpClient;
+    private final HttpTask<?> task;
+    private final HedgePolicy policy;
+    private final String host;
+    private final Lock lock = new ReentrantLock();
+
+    private Call hedge;
+    private Callback callback;
+    private HashedWheelTimer.Timeout timer;
+    private long primaryStartAt;
+    private int outstanding;
+    private boolean done;
+    private boolean canceled;
+
+    public HedgedCall(HttpClient httpClient, HttpTask<?> task, Call primary, HedgePolicy policy) {
+        super(primary);
+        this.httpClient = httpClient;
+        this.task = task;
+        this.policy = policy;
+        this.host = primary.request().url().host();
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        long delay = policy.onRequest(host);
+        lock.lock();
+        try {
+            callback = responseCallback;
+            primaryStartAt = System.nanoTime();
+            outstanding = 1;
+            if (delay >= 0) {
+                // 发出对冲请求可能经过限流等包装，交由 IO 线程池，不占用计时器线程
+                timer = httpClient.timer().newTimeout(
+                        () -> httpClient.executor().execute(this::fireHedge, true),
+                        delay, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        primary.enqueue(new Tracker(primary));
+    }
+
+    private void fireHedge() {
+        Call call;
+        lock.lock();
+        try {
+            if (done || canceled || !policy.tryHedge(host)) {
+                return;
+            }
+            call = primary.clone();
+            hedge = call;
+            outstanding++;
+        } finally {
+            lock.unlock();
+        }
+        call.enqueue(new Tracker(call));
+    }
+
+    @Override
+    public void cancel() {
+        Call other;
+        lock.lock();
+        try {
+            canceled = true;
+            other = hedge;
+            if (timer != null) {
+                timer.cancel();
+            }
+        } finally {
+            lock.unlock();
+        }
+        primary.cancel();
+        if (other != null) {
+            other.cancel();
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Call clone() {
+        return new HedgedCall(httpClient, task, primary.clone(), policy);
+    }
+
+    /**
+     * 跟踪单个请求（主请求或对冲请求）的结果
+     */
+    class Tracker implements Callback {
+
+        final Call call;
+        final long startAt = System.nanoTime();
+
+        Tracker(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onFailure(Call c, IOException e) {
+            boolean hedged;
+            lock.lock();
+            try {
+                outstanding--;
+                if (done || outstanding > 0 && !canceled) {
+                    return;
+                }
+                done = true;
+                if (timer != null) {
+                    timer.cancel();
+                }
+                hedged = hedge != null;
+            } finally {
+                lock.unlock();
+            }
+            complete(hedged);
+            callback.onFailure(HedgedCall.this, e);
+        }
+
+        @Override
+        public void onResponse(Call c, Response response) throws IOException {
+            Call loser;
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                outstanding--;
+                if (done) {
+                    response.close();
+                    // 未生效的请求在被取消前已响应，其耗时同样是有效的样本
+                    policy.onLatency(host, TimeUnit.NANOSECONDS.toMillis(now - startAt));
+                    return;
+                }
+                done = true;
+                if (timer != null) {
+                    timer.cancel();
+                }
+                loser = call == primary ? hedge : primary;
+            } finally {
+                lock.unlock();
+            }
+            if (loser != null) {
+                loser.cancel();
+            }
+            long latency = TimeUnit.NANOSECONDS.toMillis(now - primaryStartAt);
+            policy.onResponse(host, latency, call != primary);
+            complete(loser != null);
+            callback.onResponse(HedgedCall.this, response);
+        }
+
+        private void complete(boolean hedged) {
+            TaskListener<HedgePolicy.Hedge> listener = httpClient.hedgeListener();
+            if (listener != null && hedged) {
+                HedgePolicy.Hedge stat = policy.getHedge(host);
+                httpClient.executor().execute(() -> listener.listen(task, stat), true);
+            }
+        }
+
+    }
+
+}
@@ -1,38 +1,88 @@
 package com.ejlchina.okhttps.internal;
 
 import com.ejlchina.okhttps.*;
+import com.ejlchina.okhttps.internal.TagRegistry.TagTask;
 import okhttp3.*;
 import okhttp3.WebSocket;
 
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class HttpClient implements HTTP {
 
+    // 最多缓存的 URL 模板数
+    static final int MAX_URL_TEMPLATES = 1024;
+
+    // 未知文件类型的媒体类型
+    static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
     // OkHttpClient
     final OkHttpClient okClient;
     // 根URL
     final String baseUrl;
     // 媒体类型
     final Map<String, String> mediaTypes;
+    // 预先解析的媒体类型
+    final Map<String, MediaType> parsedMediaTypes = new HashMap<>();
     // 执行器
     final TaskExecutor executor;
     // 预处理器
     final Preprocessor[] preprocessors;
+    // 定时器
+    final HashedWheelTimer timer = new HashedWheelTimer("OkHttps Timer");
     // 持有标签的任务
-    final List<TagTask> tagTasks;
+    final TagRegistry tagTasks;
     // 最大预处理时间倍数（相对于普通请求的超时时间）
     final int preprocTimeoutTimes;
     // 编码格式
     final Charset charset;
     // 默认的请求体类型
     final String bodyType;
+    // 默认的对冲策略
+    final HedgePolicy hedgePolicy;
+    // 对冲监听
+    final TaskListener<HedgePolicy.Hedge> hedgeListener;
+    // 默认的重试策略
+    final RetryPolicy retryPolicy;
+    // 熔断器
+    final CircuitBreaker circuitBreaker;
+    // 并发限制器
+    final ConcurrencyLimiter concurrencyLimiter;
+    // 速率限制器
+    final RateLimiter[] rateLimiters;
+    // 是否合并相同的 GET 请求
+    final boolean coalesce;
+    // 优先级调度器
+    final PriorityScheduler priorityScheduler;
+    // 传递剩余时间的请求头
+    final String deadlineHeader;
+
+    // 合并中的请求
+    final SingleFlight singleFlight = new SingleFlight();
+    // 按超时时间派生的 OkHttpClient
+    final Map<String, OkHttpClient> derivedClients = new ConcurrentHashMap<>();
+    // 预编译的 URL 模板，超出上限时近似地淘汰最久未使用的
+    final Map<String, CachedTemplate> urlTemplates = new ConcurrentHashMap<>();
+    // 模板缓存的逻辑时钟，每次未命中时前进
+    final AtomicLong templateClock = new AtomicLong();
+    final AtomicBoolean evictingTemplates = new AtomicBoolean();
 
     public HttpClient(Builder builder) {
         this.okClient = builder.okClient();
         this.baseUrl = builder.baseUrl();
         this.mediaTypes = builder.getMediaTypes();
+        for (Map.Entry<String, String> entry : mediaTypes.entrySet()) {
+            MediaType type = MediaType.parse(entry.getValue());
+            if (type != null) {
+                parsedMediaTypes.put(entry.getKey(), type);
+            }
+        }
         this.executor = new TaskExecutor(okClient.dispatcher().executorService(),
                 builder.mainExecutor(), builder.downloadListener(),
                 builder.responseListener(), builder.exceptionListener(),
@@ -41,7 +91,16 @@ public class HttpClient implements HTTP {
         this.preprocTimeoutTimes = builder.preprocTimeoutTimes();
         this.charset = builder.charset();
         this.bodyType = builder.bodyType();
-        this.tagTasks = new LinkedList<>();
+        this.hedgePolicy = builder.hedgePolicy();
+        this.hedgeListener = builder.hedgeListener();
+        this.retryPolicy = builder.retryPolicy();
+        this.circuitBreaker = builder.circuitBreaker();
+        this.concurrencyLimiter = builder.concurrencyLimiter();
+        this.rateLimiters = builder.rateLimiters();
+        this.coalesce = builder.isCoalesce();
+        this.priorityScheduler = builder.priorityScheduler();
+        this.deadlineHeader = builder.deadlineHeader();
+        this.tagTasks = new TagRegistry(preprocTimeoutMillis(), timer);
     }
 
     @Override
@@ -58,37 +117,27 @@ public class HttpClient implements HTTP {
 	public WebSocketTask webSocket(String url) {
 		return new WebSocketTask(this, urlPath(url, true));
 	}
+
+    @Override
+    public BatchTask batch() {
+        return new BatchTask(this);
+    }
+
+    @Override
+    public RequestPrototype prototype(String url) {
+        return new RequestPrototype(this, urlPath(url, false));
+    }
     
     @Override
     public int cancel(String tag) {
-        if (tag == null) {
-            return 0;
-        }
-        int count = 0;
-        synchronized (tagTasks) {
-        	Iterator<TagTask> it = tagTasks.iterator();
-            while (it.hasNext()) {
-                TagTask tagCall = it.next();
-                // 只要任务的标签包含指定的Tag就会被取消
-                if (tagCall.tag.contains(tag)) {
-                    if (tagCall.canceler.cancel()) {
-                        count++;
-                    }
-                    it.remove();
-                } else if (tagCall.isExpired()) {
-                    it.remove();
-                }
-            }
-        }
-        return count;
+        // 只要任务的标签包含指定的Tag就会被取消
+        return tagTasks.cancel(tag);
     }
 
     @Override
     public void cancelAll() {
         okClient.dispatcher().cancelAll();
-        synchronized (tagTasks) {
-        	tagTasks.clear();
-        }
+        tagTasks.clear();
     }
 
     @Override
@@ -105,71 +154,63 @@ public class HttpClient implements HTTP {
         return okClient;
     }
 
+    /**
+     * @since 2.0.0
+     * 获取以指定超时时间派生的 OkHttpClient，与本实例共用连接池与调度器
+     * @param connectTimeout 连接超时（毫秒），小于 0 表示不变
+     * @param readTimeout 读取超时（毫秒），小于 0 表示不变
+     * @param writeTimeout 写入超时（毫秒），小于 0 表示不变
+     * @return OkHttpClient
+     */
+    public OkHttpClient okClient(int connectTimeout, int readTimeout, int writeTimeout) {
+        String key = connectTimeout + ":" + readTimeout + ":" + writeTimeout;
+        return derivedClients.computeIfAbsent(key, (String k) -> {
+            OkHttpClient.Builder builder = okClient.newBuilder();
+            if (connectTimeout >= 0) {
+                builder.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS);
+            }
+            if (readTimeout >= 0) {
+                builder.readTimeout(readTimeout, TimeUnit.MILLISECONDS);
+            }
+            if (writeTimeout >= 0) {
+                builder.writeTimeout(writeTimeout, TimeUnit.MILLISECONDS);
+            }
+            return builder.build();
+        });
+    }
+
     public int preprocTimeoutMillis() {
         return preprocTimeoutTimes * (okClient.connectTimeoutMillis()
         		+ okClient.writeTimeoutMillis()
         		+ okClient.readTimeoutMillis());
     }
 
+    /**
+     * @since 2.0.0
+     * @return 被合并（未发出自己的请求）的请求数
+     */
+    public long getCollapsedCount() {
+        return singleFlight.getCollapsedCount();
+    }
+
     public int getTagTaskCount() {
         return tagTasks.size();
     }
 
     public TagTask addTagTask(String tag, Cancelable canceler, HttpTask<?> task) {
-        TagTask tagTask = new TagTask(tag, canceler, task);
-        synchronized (tagTasks) {
-        	tagTasks.add(tagTask);
-        }
-		return tagTask;
-    }
-
-    public void removeTagTask(HttpTask<?> task) {
-    	synchronized (tagTasks) {
-    		Iterator<TagTask> it = tagTasks.iterator();
-            while (it.hasNext()) {
-                TagTask tagCall = it.next();
-                if (tagCall.task == task) {
-                    it.remove();
-                    break;
-                }
-                if (tagCall.isExpired()) {
-                    it.remove();
-                }
-            }
-    	}
+        return tagTasks.add(tag, canceler, task);
     }
 
-    public class TagTask {
-
-        String tag;
-        Cancelable canceler;
-        HttpTask<?> task;
-        long createAt;
-
-        TagTask(String tag, Cancelable canceler, HttpTask<?> task) {
-            this.tag = tag;
-            this.canceler = canceler;
-            this.task = task;
-            this.createAt = System.nanoTime();
-        }
-
-        boolean isExpired() {
-            // 生存时间大于10倍的总超时限值
-            return System.nanoTime() - createAt > 1_000_000 * preprocTimeoutMillis();
-        }
-
-		public void setTag(String tag) {
-			this.tag = tag;
-		}
-
+    public void removeTagTask(TagTask tagTask) {
+        tagTask.remove();
     }
 
     public MediaType mediaType(String type) {
-        String mediaType = mediaTypes.get(type);
+        MediaType mediaType = parsedMediaTypes.get(type);
         if (mediaType != null) {
-            return MediaType.parse(mediaType);
+            return mediaType;
         }
-        return MediaType.parse("application/octet-stream");
+        return OCTET_STREAM;
     }
 
     @Override
@@ -206,51 +247,288 @@ public class HttpClient implements HTTP {
      */
     public static class SerialPreprocessor implements Preprocessor {
 
+        /**
+         * 预处理超时后的处理策略
+         */
+        public enum TimeoutPolicy {
+
+            /**
+             * 取消超时的任务
+             */
+            CANCEL,
+
+            /**
+             * 跳过该预处理器，继续执行超时的任务
+             */
+            BYPASS
+
+        }
+
         // 预处理器
         private Preprocessor preprocessor;
         // 待处理的任务队列
-        private Queue<PreChain> pendings;
+        private Queue<Pending> pendings;
         // 是否有任务正在执行
         private boolean running = false;
+        // 正在执行的任务
+        private PreChain current;
+        // 正在执行的任务的超时检查
+        private HashedWheelTimer.Timeout timeoutFuture;
+        // 是否合并执行：一次预处理完成后，放行期间排队的所有任务
+        private boolean coalesce = false;
+        // 预处理超时时间（毫秒），小于等于 0 表示不超时
+        private long timeoutMillis = 0;
+        // 预处理超时后的处理策略
+        private TimeoutPolicy timeoutPolicy = TimeoutPolicy.CANCEL;
+        // 排队过的任务数
+        private long waitedCount = 0;
+        // 排队总时长（纳秒）
+        private long totalWaitNanos = 0;
+        // 最大排队时长（纳秒）
+        private long maxWaitNanos = 0;
 
         public SerialPreprocessor(Preprocessor preprocessor) {
             this.preprocessor = preprocessor;
             this.pendings = new LinkedList<>();
         }
 
+        /**
+         * 开启合并执行模式：预处理器执行一次后，放行在其执行期间排队的所有任务，
+         * 适用于刷新 Token 等只需执行一次的场景。
+         * 被放行的任务不会再执行该预处理器，对任务的修改（如添加 Token 头）应放在后续的预处理器中
+         * @param coalesce 是否合并执行
+         * @return SerialPreprocessor
+         */
+        public SerialPreprocessor coalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
+        /**
+         * 设置预处理超时时间，预处理器在该时间内未调用 {@link PreChain#proceed()} 时，
+         * 按 policy 处理该任务，并继续处理队列中的其它任务
+         * @param timeoutMillis 超时时间（毫秒），小于等于 0 表示不超时
+         * @param policy 超时处理策略
+         * @return SerialPreprocessor
+         */
+        public SerialPreprocessor timeout(long timeoutMillis, TimeoutPolicy policy) {
+            this.timeoutMillis = timeoutMillis;
+            if (policy != null) {
+                this.timeoutPolicy = policy;
+            }
+            return this;
+        }
+
         @Override
         public void doProcess(PreChain chain) {
             boolean should = true;
             synchronized (this) {
                 if (running) {
-                    pendings.add(chain);
+                    pendings.add(new Pending(chain));
                     should = false;
                 } else {
                     running = true;
+                    current = chain;
                 }
             }
             if (should) {
-                preprocessor.doProcess(chain);
+                execute(chain);
             }
         }
 
-        public void afterProcess() {
-            PreChain chain = null;
+        /**
+         * @param chain 当前执行完成的任务
+         * @return 该任务是否可以继续执行（已超时被处理过的任务返回 false）
+         */
+        boolean afterProcess(PreChain chain) {
+            List<PreChain> chains;
             synchronized (this) {
-                if (pendings.size() > 0) {
-                    chain = pendings.poll();
+                if (chain != current) {
+                    return false;
+                }
+                chains = next();
+            }
+            dispatch(chains);
+            return true;
+        }
+
+        private void onTimeout(PreChain chain) {
+            List<PreChain> chains;
+            synchronized (this) {
+                if (chain != current) {
+                    return;
+                }
+                chains = next();
+            }
+            dispatch(chains);
+            if (timeoutPolicy == TimeoutPolicy.CANCEL) {
+                chain.getTask().cancel();
+                ((RealPreChain) chain).terminate();
+            } else {
+                ((RealPreChain) chain).next();
+            }
+        }
+
+        // 须在同步块内调用：合并模式下返回被放行的所有任务，否则返回下一个待执行的任务
+        private List<PreChain> next() {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel();
+                timeoutFuture = null;
+            }
+            List<PreChain> chains = new ArrayList<>();
+            Pending pending;
+            while ((pending = pendings.poll()) != null) {
+                chains.add(waited(pending));
+                if (!coalesce) {
+                    break;
+                }
+            }
+            if (coalesce || chains.isEmpty()) {
+                running = false;
+                current = null;
+            } else {
+                current = chains.get(0);
+            }
+            return chains;
+        }
+
+        private void dispatch(List<PreChain> chains) {
+            for (PreChain chain : chains) {
+                if (coalesce) {
+                    // 合并模式下，被放行的任务不再执行该预处理器
+                    ((RealPreChain) chain).next();
                 } else {
-                    running = false;
+                    execute(chain);
                 }
             }
-            if (chain != null) {
-                preprocessor.doProcess(chain);
+        }
+
+        private void execute(PreChain chain) {
+            if (timeoutMillis > 0) {
+                HttpClient http = (HttpClient) chain.getHttp();
+                // 超时后会执行后续任务的预处理，交由 IO 线程池，不占用计时器线程
+                HashedWheelTimer.Timeout future = http.timer().newTimeout(
+                        () -> http.executor().execute(() -> onTimeout(chain), true),
+                        timeoutMillis, TimeUnit.MILLISECONDS);
+                synchronized (this) {
+                    if (chain == current) {
+                        timeoutFuture = future;
+                    } else {
+                        future.cancel();
+                    }
+                }
             }
+            preprocessor.doProcess(chain);
+        }
+
+        private PreChain waited(Pending pending) {
+            long waitNanos = System.nanoTime() - pending.enqueueAt;
+            waitedCount++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+            return pending.chain;
+        }
+
+        /**
+         * @return 当前排队等待的任务数
+         */
+        public synchronized int queueSize() {
+            return pendings.size();
+        }
+
+        /**
+         * @return 累计排队过的任务数
+         */
+        public synchronized long waitedCount() {
+            return waitedCount;
+        }
+
+        /**
+         * @return 累计排队时长（毫秒）
+         */
+        public synchronized long totalWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+        }
+
+        /**
+         * @return 最大排队时长（毫秒）
+         */
+        public synchronized long maxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+        }
+
+        static class Pending {
+
+            PreChain chain;
+            long enqueueAt;
+
+            Pending(PreChain chain) {
+                this.chain = chain;
+                this.enqueueAt = System.nanoTime();
+            }
+
         }
 
     }
 
 
+    /**
+     * 异步预处理器适配器，将 {@link AsyncPreprocessor} 的阶段接入预处理器链
+     */
+    public static class AsyncStagePreprocessor implements Preprocessor {
+
+        // 异步预处理器
+        private AsyncPreprocessor preprocessor;
+        // 该阶段的期限（毫秒），小于等于 0 表示不限
+        private long deadlineMillis;
+
+        public AsyncStagePreprocessor(AsyncPreprocessor preprocessor, long deadlineMillis) {
+            this.preprocessor = preprocessor;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        @Override
+        public void doProcess(PreChain chain) {
+            AtomicBoolean done = new AtomicBoolean(false);
+            CompletionStage<?> stage = preprocessor.process(chain);
+            if (stage == null) {
+                if (done.compareAndSet(false, true)) {
+                    chain.proceed();
+                }
+                return;
+            }
+            HashedWheelTimer.Timeout deadline = null;
+            if (deadlineMillis > 0) {
+                deadline = ((HttpClient) chain.getHttp()).timer().newTimeout(() -> {
+                    if (abort(chain, done)) {
+                        stage.toCompletableFuture().cancel(false);
+                    }
+                }, deadlineMillis, TimeUnit.MILLISECONDS);
+            }
+            HashedWheelTimer.Timeout future = deadline;
+            stage.whenComplete((Object result, Throwable error) -> {
+                if (future != null) {
+                    future.cancel();
+                }
+                if (error != null) {
+                    abort(chain, done);
+                } else if (done.compareAndSet(false, true)) {
+                    chain.proceed();
+                }
+            });
+        }
+
+        private boolean abort(PreChain chain, AtomicBoolean done) {
+            if (done.compareAndSet(false, true)) {
+                chain.getTask().cancel();
+                ((RealPreChain) chain).terminate();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
     class RealPreChain implements Preprocessor.PreChain {
 
         private int index;
@@ -291,10 +569,16 @@ public class HttpClient implements HTTP {
         		}
         	} else {
         		Preprocessor last = preprocessors[index - 1];
-                if (last instanceof SerialPreprocessor) {
-                    ((SerialPreprocessor) last).afterProcess();
+                if (last instanceof SerialPreprocessor
+                        && !((SerialPreprocessor) last).afterProcess(this)) {
+                    return;
                 }
         	}
+            next();
+        }
+
+        // 执行下一个预处理器
+        void next() {
             if (index < preprocessors.length) {
                 preprocessors[index++].doProcess(this);
             } else {
@@ -302,6 +586,12 @@ public class HttpClient implements HTTP {
             }
         }
 
+        // 跳过剩余的预处理器，直接结束任务（任务已被取消）
+        void terminate() {
+            index = preprocessors.length;
+            request.run();
+        }
+
     }
 
     @Override
@@ -339,6 +629,14 @@ public class HttpClient implements HTTP {
         return fullUrl;
     }
 
+    /**
+     * @since 2.0.0
+     * @return 本实例的定时器，用于超时、重试、过期清理等延时任务
+     */
+    public HashedWheelTimer timer() {
+        return timer;
+    }
+
     public String baseUrl() {
         return baseUrl;
     }
@@ -351,7 +649,7 @@ public class HttpClient implements HTTP {
         return preprocessors;
     }
 
-    public List<TagTask> tagTasks() {
+    public TagRegistry tagTasks() {
         return tagTasks;
     }
 
@@ -363,6 +661,108 @@ public class HttpClient implements HTTP {
         return charset;
     }
 
+    public HedgePolicy hedgePolicy() {
+        return hedgePolicy;
+    }
+
+    public TaskListener<HedgePolicy.Hedge> hedgeListener() {
+        return hedgeListener;
+    }
+
+    public RetryPolicy retryPolicy() {
+        return retryPolicy;
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public RateLimiter[] rateLimiters() {
+        return rateLimiters;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public PriorityScheduler priorityScheduler() {
+        return priorityScheduler;
+    }
+
+    public String deadlineHeader() {
+        return deadlineHeader;
+    }
+
+    public SingleFlight singleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * @since 2.0.0
+     * 获取 URL 对应的预编译模板，每个不同的 URL 只解析一次
+     * @param url 完整的 URL 模板
+     * @return UrlTemplate
+     */
+    public UrlTemplate urlTemplate(String url) {
+        CachedTemplate cached = urlTemplates.get(url);
+        if (cached != null) {
+            // 命中时只刷新访问时刻，不加锁
+            long now = templateClock.get();
+            if (cached.accessed != now) {
+                cached.accessed = now;
+            }
+            return cached.template;
+        }
+        cached = new CachedTemplate(UrlTemplate.parse(url), templateClock.incrementAndGet());
+        CachedTemplate existing = urlTemplates.putIfAbsent(url, cached);
+        if (existing != null) {
+            return existing.template;
+        }
+        // 直接拼接在 URL 中的可变值会使模板无限增多，超出上限时淘汰，常用的模板仍留在缓存中
+        if (urlTemplates.size() > MAX_URL_TEMPLATES) {
+            evictTemplates();
+        }
+        return cached.template;
+    }
+
+    /**
+     * 一次淘汰最久未访问的约 1/8 的模板，由一个线程执行，其它线程不等待
+     */
+    private void evictTemplates() {
+        if (!evictingTemplates.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = urlTemplates.size() - MAX_URL_TEMPLATES * 7 / 8;
+            if (excess <= 0) {
+                return;
+            }
+            long[] accessed = urlTemplates.values().stream()
+                    .mapToLong((CachedTemplate t) -> t.accessed)
+                    .sorted().toArray();
+            long threshold = accessed[Math.min(excess, accessed.length) - 1];
+            urlTemplates.values().removeIf((CachedTemplate t) -> t.accessed <= threshold);
+        } finally {
+            evictingTemplates.set(false);
+        }
+    }
+
+    static class CachedTemplate {
+
+        final UrlTemplate template;
+        volatile long accessed;
+
+        CachedTemplate(UrlTemplate template, long accessed) {
+            this.template = template;
+            this.accessed = accessed;
+        }
+
+    }
+
     public String bodyType() {
         return bodyType;
     }
@@ -0,0 +1,256 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import com.ejlchina.okhttps.CircuitOpenException;
+import com.ejlchina.okhttps.ConcurrencyLimiter;
+import com.ejlchina.okhttps.PriorityScheduler;
+import com.ejlchina.okhttps.RejectedException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * 受并发控制（并发限制器或优先级调度器）的调用
+ * 获得执行权后才发起请求，请求结束时归还执行权并将结果反馈给控制方
+ * @since 2.0.0
+ */
+public class LimitedCall extends CallWrapper {
+
+    /**
+     * 执行权的控制方
+     */
+    public interface Gate {
+
+        /**
+         * @param onAdmit 获得执行权时的回调
+         * @param onReject 被拒绝时的回调
+         * @return 尚未申请的许可
+         */
+        Ticket newTicket(Runnable onAdmit, Consumer<RejectedException> onReject);
+
+        /**
+         * @param nanos 请求耗时（纳秒）
+         * @param dropped 请求是否失败或被限流，为 null 表示不计入
+         */
+        void release(long nanos, Boolean dropped);
+
+    }
+
+    /**
+     * 执行权的许可
+     */
+    public interface Ticket {
+
+        /**
+         * 申请执行权
+         */
+        void acquire();
+
+        /**
+         * @return 是否在排队中并已移出队列
+         */
+        boolean abandon();
+
+    }
+
+    private final Gate gate;
+
+    private volatile Waiter waiter;
+    private volatile boolean canceled;
+
+    public LimitedCall(Call primary, Gate gate) {
+        super(primary);
+        this.gate = gate;
+    }
+
+    /**
+     * @param primary 被控制的调用
+     * @param limiter 并发限制器
+     * @param timer 用于排队超时的定时器
+     * @param executor 用于执行排队超时的拒绝回调
+     * @return 受该主机并发限制的调用
+     */
+    public static LimitedCall of(Call primary, ConcurrencyLimiter limiter, HashedWheelTimer timer,
+                                 TaskExecutor executor) {
+        String host = primary.request().url().host();
+        return new LimitedCall(primary, new Gate() {
+            @Override
+            public Ticket newTicket(Runnable onAdmit, Consumer<RejectedException> onReject) {
+                ConcurrencyLimiter.Permit permit = new ConcurrencyLimiter.Permit() {
+                    @Override
+                    protected void onAdmit() {
+                        onAdmit.run();
+                    }
+                    @Override
+                    protected void onReject(RejectedException e) {
+                        onReject.accept(e);
+                    }
+                };
+                return new Ticket() {
+                    @Override
+                    public void acquire() {
+                        limiter.acquire(host, permit, timer, executor);
+                    }
+                    @Override
+                    public boolean abandon() {
+                        return limiter.abandon(host, permit);
+                    }
+                };
+            }
+            @Override
+            public void release(long nanos, Boolean dropped) {
+                limiter.release(host, nanos, dropped);
+            }
+        });
+    }
+
+    /**
+     * @param primary 被控制的调用
+     * @param scheduler 优先级调度器
+     * @param priority 优先级
+     * @return 按优先级调度的调用
+     */
+    public static LimitedCall of(Call primary, PriorityScheduler scheduler, int priority) {
+        return new LimitedCall(primary, new Gate() {
+            @Override
+            public Ticket newTicket(Runnable onAdmit, Consumer<RejectedException> onReject) {
+                PriorityScheduler.Permit permit = new PriorityScheduler.Permit() {
+                    @Override
+                    protected void onAdmit() {
+                        onAdmit.run();
+                    }
+                    @Override
+                    protected void onReject(RejectedException e) {
+                        onReject.accept(e);
+                    }
+                };
+                return new Ticket() {
+                    @Override
+                    public void acquire() {
+                        scheduler.acquire(priority, permit);
+                    }
+                    @Override
+                    public boolean abandon() {
+                        return scheduler.abandon(permit);
+                    }
+                };
+            }
+            @Override
+            public void release(long nanos, Boolean dropped) {
+                scheduler.release();
+            }
+        });
+    }
+
+    @Override
+    public Response execute() throws IOException {
+        CompletableFuture<Void> admitted = new CompletableFuture<>();
+        acquire(() -> admitted.complete(null), admitted::completeExceptionally);
+        try {
+            admitted.get();
+        } catch (InterruptedException e) {
+            cancel();
+            throw new InterruptedIOException("Interrupted");
+        } catch (ExecutionException e) {
+            throw (IOException) e.getCause();
+        }
+        long startAt = System.nanoTime();
+        try {
+            Response response = primary.execute();
+            gate.release(System.nanoTime() - startAt, dropped(response));
+            return response;
+        } catch (IOException e) {
+            gate.release(System.nanoTime() - startAt, dropped(primary, e));
+            throw e;
+        }
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        acquire(() -> {
+            long startAt = System.nanoTime();
+            primary.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    gate.release(System.nanoTime() - startAt, dropped(primary, e));
+                    responseCallback.onFailure(LimitedCall.this, e);
+                }
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    gate.release(System.nanoTime() - startAt, dropped(response));
+                    responseCallback.onResponse(LimitedCall.this, response);
+                }
+            });
+        }, (IOException e) -> responseCallback.onFailure(this, e));
+    }
+
+    private void acquire(Runnable onAdmit, Consumer<IOException> onFail) {
+        if (canceled) {
+            onFail.accept(new IOException("Canceled"));
+            return;
+        }
+        Waiter waiter = new Waiter(onAdmit, onFail);
+        this.waiter = waiter;
+        waiter.ticket.acquire();
+    }
+
+    private static Boolean dropped(Call call, IOException e) {
+        // 取消或熔断的请求没有到达服务端，不影响并发上限
+        return call.isCanceled() || e instanceof CircuitOpenException ? null : true;
+    }
+
+    private static Boolean dropped(Response response) {
+        return response.code() == 429 || response.code() == 503;
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        Waiter waiter = this.waiter;
+        if (waiter != null && waiter.ticket.abandon()) {
+            waiter.onFail.accept(new IOException("Canceled"));
+        }
+        primary.cancel();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Call clone() {
+        return new LimitedCall(primary.clone(), gate);
+    }
+
+    class Waiter {
+
+        final Runnable onAdmit;
+        final Consumer<IOException> onFail;
+        final Ticket ticket;
+
+        Waiter(Runnable onAdmit, Consumer<IOException> onFail) {
+            this.onAdmit = onAdmit;
+            this.onFail = onFail;
+            this.ticket = gate.newTicket(this::admit, onFail::accept);
+        }
+
+        void admit() {
+            if (canceled) {
+                // 排队期间已被取消，直接归还执行权
+                gate.release(0, null);
+                onFail.accept(new IOException("Canceled"));
+            } else {
+                onAdmit.run();
+            }
+        }
+
+    }
+
+}
@@ -33,6 +33,8 @@ public class ProcessInputStream extends InputStream {
 		int data = input.read();
 		if (data > -1) {
 			process.increaseDoneBytes();
+		} else {
+			process.finish();
 		}
 		if (process.notDoneOrReached(step * stepBytes)) {
 			return data;
@@ -83,6 +83,13 @@ public class ProcessRequestBody extends RequestBody {
         }
         requestBody.writeTo(bufferedSink);
         bufferedSink.flush();
+        // 分块传输时总长度未知，写完后补发完成回调
+        if (process.finish() && !doneCalled) {
+            doneCalled = true;
+            callbackExecutor.execute(() -> {
+                onProcess.on(process);
+            });
+        }
 	}
 	
 
@@ -0,0 +1,140 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.ejlchina.okhttps.RateLimiter.Bucket;
+import com.ejlchina.okhttps.RejectedException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * 受速率限制的调用
+ * 先在所有适用的令牌桶中预订令牌，再延时到最晚的可用时刻发起请求；响应用于调整各令牌桶的速率
+ * @since 2.0.0
+ */
+public class RateLimitedCall extends CallWrapper {
+
+    private final HashedWheelTimer wheel;
+    private final TaskExecutor executor;
+    private final List<Bucket> buckets;
+
+    private volatile HashedWheelTimer.Timeout timer;
+    private volatile Runnable onCanceled;
+    private volatile boolean canceled;
+
+    public RateLimitedCall(HashedWheelTimer wheel, TaskExecutor executor, Call primary, List<Bucket> buckets) {
+        super(primary);
+        this.wheel = wheel;
+        this.executor = executor;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public Response execute() throws IOException {
+        long wait = reserve();
+        if (wait > 0) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            onCanceled = () -> future.completeExceptionally(new IOException("Canceled"));
+            // 计时器线程只负责到期通知，不执行任何后续工作
+            timer = wheel.newTimeout(() -> executor.execute(() -> future.complete(null), true),
+                    wait, TimeUnit.NANOSECONDS);
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                cancel();
+                throw new InterruptedIOException("Interrupted");
+            } catch (ExecutionException e) {
+                throw (IOException) e.getCause();
+            }
+        }
+        return adapt(primary.execute());
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        long wait;
+        try {
+            wait = reserve();
+        } catch (IOException e) {
+            responseCallback.onFailure(this, e);
+            return;
+        }
+        Callback callback = new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                responseCallback.onFailure(RateLimitedCall.this, e);
+            }
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                responseCallback.onResponse(RateLimitedCall.this, adapt(response));
+            }
+        };
+        if (wait > 0) {
+            onCanceled = () -> callback.onFailure(this, new IOException("Canceled"));
+            timer = wheel.newTimeout(() -> executor.execute(() -> primary.enqueue(callback), true),
+                    wait, TimeUnit.NANOSECONDS);
+        } else {
+            primary.enqueue(callback);
+        }
+    }
+
+    private long reserve() throws IOException {
+        if (canceled) {
+            throw new IOException("Canceled");
+        }
+        long wait = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            long w = buckets.get(i).reserve();
+            if (w < 0) {
+                for (int j = 0; j < i; j++) {
+                    buckets.get(j).unreserve();
+                }
+                throw new RejectedException("速率受限（超过最大等待时间）：" + buckets.get(i).getKey());
+            }
+            wait = Math.max(wait, w);
+        }
+        return wait;
+    }
+
+    private Response adapt(Response response) {
+        for (Bucket bucket : buckets) {
+            bucket.adapt(response);
+        }
+        return response;
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+        HashedWheelTimer.Timeout timer = this.timer;
+        if (timer != null && timer.cancel()) {
+            // 还在等待令牌，归还预订的令牌，以免被取消的请求继续占用速率
+            for (Bucket bucket : buckets) {
+                bucket.unreserve();
+            }
+            Runnable onCanceled = this.onCanceled;
+            if (onCanceled != null) {
+                onCanceled.run();
+            }
+        }
+        primary.cancel();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Call clone() {
+        return new RateLimitedCall(wheel, executor, primary.clone(), buckets);
+    }
+
+}
@@ -4,7 +4,7 @@ import com.ejlchina.okhttps.Process;
 
 public class RealProcess implements Process {
 
-	// 总字节数
+	// 总字节数，未知时为 -1
 	private long totalBytes;
 	// 已经完成字节数
 	private long doneBytes;
@@ -17,6 +17,9 @@ public class RealProcess implements Process {
 	
 	@Override
 	public double getRate() {
+		if (totalBytes < 0) {
+			return 0;
+		}
 		return (double) doneBytes / totalBytes;
 	}
 
@@ -32,7 +35,7 @@ public class RealProcess implements Process {
 	
 	@Override
 	public boolean isDone() {
-		return doneBytes >= totalBytes;
+		return totalBytes >= 0 && doneBytes >= totalBytes;
 	}
 	
 	public void addDoneBytes(long delt) {
@@ -44,7 +47,19 @@ public class RealProcess implements Process {
 	}
 	
 	public boolean notDoneOrReached(long bytes) {
-		return doneBytes < bytes && doneBytes < totalBytes;
+		return doneBytes < bytes && (totalBytes < 0 || doneBytes < totalBytes);
+	}
+
+	/**
+	 * 总长度未知时，在传输结束后以已完成的字节数作为总字节数
+	 * @return 是否由未知变为完成
+	 */
+	public boolean finish() {
+		if (totalBytes < 0) {
+			totalBytes = doneBytes;
+			return true;
+		}
+		return false;
 	}
 
 }
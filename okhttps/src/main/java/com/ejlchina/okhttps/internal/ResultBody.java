@@ -44,6 +44,18 @@ public class ResultBody extends AbstractBody implements Body {
 		return null;
 	}
 
+	// 由 Content-Type 确定消息类型，如 application/problem+json 为 json
+	@Override
+	protected String msgType() {
+		MediaType type = getType();
+		if (type == null) {
+			return null;
+		}
+		String subtype = type.subtype();
+		int index = subtype.lastIndexOf('+');
+		return index >= 0 ? subtype.substring(index + 1) : subtype;
+	}
+
 	@Override
 	public long getLength() {
 		ResponseBody body = response.body();
@@ -0,0 +1,171 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.ejlchina.okhttps.HttpResult.State;
+import com.ejlchina.okhttps.RateLimiter;
+import com.ejlchina.okhttps.RetryPolicy;
+import com.ejlchina.okhttps.SerializeException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 重试调用
+ * 每次重试都克隆上一次的调用，复用同一个 Request，请求体（字节数组、文件等）不会被重新序列化。
+ * 重试由定时器延时触发，不占用请求线程
+ * @since 2.0.0
+ */
+public class RetryingCall extends CallWrapper {
+
+    private final HashedWheelTimer wheel;
+    private final RetryPolicy policy;
+
+    private final Function<IOException, State> toState;
+    private final String host;
+    private final Lock lock = new ReentrantLock();
+
+    private Call current;
+    private Callback callback;
+    private HashedWheelTimer.Timeout timer;
+    private int retries;
+    private boolean done;
+    private boolean canceled;
+
+    public RetryingCall(HashedWheelTimer wheel, Call primary, RetryPolicy policy, Function<IOException, State> toState) {
+        super(primary);
+        this.wheel = wheel;
+        this.policy = policy;
+        this.toState = toState;
+        this.host = primary.request().url().host();
+        this.current = primary;
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        callback = responseCallback;
+        policy.onRequest(host);
+        current.enqueue(new Attempt());
+    }
+
+    @Override
+    public void cancel() {
+        boolean waiting;
+        Call call;
+        lock.lock();
+        try {
+            canceled = true;
+            // 正在等待重试时，没有进行中的请求，需在此回调
+            waiting = timer != null && timer.cancel();
+            call = current;
+        } finally {
+            lock.unlock();
+        }
+        call.cancel();
+        if (waiting) {
+            finish();
+            callback.onFailure(this, new IOException("Canceled"));
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    @Override
+    public Call clone() {
+        return new RetryingCall(wheel, primary.clone(), policy, toState);
+    }
+
+    /**
+     * 若可以重试，则调度下一次重试
+     * @param delayMillis 服务端要求的最小间隔（毫秒）
+     * @return 是否已调度重试
+     */
+    private boolean scheduleRetry(long delayMillis) {
+        lock.lock();
+        try {
+            if (canceled || done || retries >= policy.getMaxRetries() || !replayable()
+                    || !policy.tryRetry(host)) {
+                return false;
+            }
+            retries++;
+            long delay = Math.max(policy.backoffMillis(retries), delayMillis);
+            timer = wheel.newTimeout(this::retry, delay, TimeUnit.MILLISECONDS);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void retry() {
+        Call call;
+        lock.lock();
+        try {
+            timer = null;
+            if (canceled) {
+                done = true;
+                call = null;
+            } else {
+                call = current.clone();
+                current = call;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (call != null) {
+            call.enqueue(new Attempt());
+        } else {
+            callback.onFailure(this, new IOException("Canceled"));
+        }
+    }
+
+    private boolean replayable() {
+        RequestBody body = primary.request().body();
+        return policy.canRetry(primary.request().method()) && (body == null || !body.isOneShot());
+    }
+
+    private void finish() {
+        lock.lock();
+        try {
+            done = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    class Attempt implements Callback {
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            // 序列化失败重试也不会成功
+            if (!(e instanceof SerializeException) && policy.shouldRetry(toState.apply(e))
+                    && scheduleRetry(0)) {
+                return;
+            }
+            finish();
+            callback.onFailure(RetryingCall.this, e);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+            if (policy.shouldRetry(response.code())
+                    && scheduleRetry(TimeUnit.NANOSECONDS.toMillis(
+                            RateLimiter.retryAfterNanos(response.header("Retry-After"))))) {
+                response.close();
+                return;
+            }
+            finish();
+            callback.onResponse(RetryingCall.this, response);
+        }
+
+    }
+
+}
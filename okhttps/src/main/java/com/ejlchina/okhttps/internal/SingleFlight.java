@@ -0,0 +1,199 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 合并相同的并发请求
+ * 方法、最终 URL 与请求头都相同的进行中请求共用一个底层调用，响应体被读入内存，
+ * 每个等待者得到各自独立的响应副本
+ * @since 2.0.0
+ */
+public class SingleFlight {
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    /**
+     * 加入一个请求，若已有相同的进行中请求则等待其结果，否则由 call 发起请求
+     * @param call 请求调用
+     * @param waiter 等待者
+     * @param callback 结果回调
+     * @return 所加入的请求组
+     */
+    Flight join(Call call, Object waiter, Callback callback) {
+        String key = key(call.request());
+        while (true) {
+            Flight flight = flights.computeIfAbsent(key, (String k) -> new Flight(k, call));
+            if (flight.add(waiter, callback)) {
+                if (flight.call == call) {
+                    call.enqueue(flight);
+                } else {
+                    collapsed.incrementAndGet();
+                }
+                return flight;
+            }
+            // 该组刚刚完成，重新加入
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return 被合并的请求数
+     */
+    public long getCollapsedCount() {
+        return collapsed.get();
+    }
+
+    /**
+     * @return 进行中的请求组数
+     */
+    public int getFlightCount() {
+        return flights.size();
+    }
+
+    static String key(Request request) {
+        return request.method() + ' ' + request.url() + '\n' + request.headers();
+    }
+
+    class Flight implements Callback {
+
+        final String key;
+        final Call call;
+        final List<Object> waiters = new ArrayList<>();
+        final List<Callback> callbacks = new ArrayList<>();
+        boolean done;
+
+        Flight(String key, Call call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        synchronized boolean add(Object waiter, Callback callback) {
+            if (done) {
+                return false;
+            }
+            waiters.add(waiter);
+            callbacks.add(callback);
+            return true;
+        }
+
+        /**
+         * 移除一个等待者，所有等待者都移除时取消底层调用
+         * @param waiter 等待者
+         * @return 被移除的等待者的回调，不在组中时返回 null
+         */
+        Callback remove(Object waiter) {
+            Callback callback;
+            boolean empty;
+            synchronized (this) {
+                int index = waiters.indexOf(waiter);
+                if (done || index < 0) {
+                    return null;
+                }
+                waiters.remove(index);
+                callback = callbacks.remove(index);
+                empty = waiters.isEmpty();
+                if (empty) {
+                    done = true;
+                }
+            }
+            if (empty) {
+                flights.remove(key, this);
+                call.cancel();
+            }
+            return callback;
+        }
+
+        private List<Callback> finish() {
+            flights.remove(key, this);
+            synchronized (this) {
+                done = true;
+                return new ArrayList<>(callbacks);
+            }
+        }
+
+        @Override
+        public void onFailure(Call c, IOException e) {
+            RuntimeException error = null;
+            for (Callback callback : finish()) {
+                error = failure(callback, c, e, error);
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        @Override
+        public void onResponse(Call c, Response response) throws IOException {
+            List<Callback> callbacks = finish();
+            byte[] bytes;
+            ResponseBody body = response.body();
+            RuntimeException error = null;
+            try {
+                bytes = body != null ? body.bytes() : null;
+            } catch (IOException e) {
+                for (Callback callback : callbacks) {
+                    error = failure(callback, c, e, error);
+                }
+                if (error != null) {
+                    throw error;
+                }
+                return;
+            } finally {
+                response.close();
+            }
+            IOException ioError = null;
+            for (Callback callback : callbacks) {
+                Response copy = response.newBuilder()
+                        .body(bytes != null ? ResponseBody.create(body.contentType(), bytes) : null)
+                        .build();
+                // 每个等待者的回调相互隔离，一个抛出异常不影响其它等待者
+                try {
+                    callback.onResponse(c, copy);
+                } catch (IOException e) {
+                    if (ioError == null) {
+                        ioError = e;
+                    }
+                } catch (RuntimeException e) {
+                    error = suppress(error, e);
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            if (ioError != null) {
+                throw ioError;
+            }
+        }
+
+        private RuntimeException failure(Callback callback, Call c, IOException e, RuntimeException error) {
+            try {
+                callback.onFailure(c, e);
+            } catch (RuntimeException ex) {
+                return suppress(error, ex);
+            }
+            return error;
+        }
+
+        private RuntimeException suppress(RuntimeException error, RuntimeException e) {
+            if (error == null) {
+                return e;
+            }
+            error.addSuppressed(e);
+            return error;
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Source;
+
+/**
+ * 流式请求体，写出时才打开数据源并直接拷贝到连接中，不在内存中缓冲
+ * @since 2.0.0
+ */
+public class SourceRequestBody extends RequestBody {
+
+	/**
+	 * 数据源的打开方式
+	 */
+	public interface Opener {
+
+		/**
+		 * @return 新打开的数据源，由请求体负责关闭
+		 * @throws IOException 打开异常
+		 */
+		Source open() throws IOException;
+
+	}
+
+	private final MediaType contentType;
+	private final Opener opener;
+	private final long contentLength;
+	private final boolean oneShot;
+	private final AtomicBoolean written = new AtomicBoolean();
+
+	/**
+	 * @param contentType 媒体类型
+	 * @param opener 数据源的打开方式
+	 * @param contentLength 长度，未知时为 -1（分块传输）
+	 * @param oneShot 数据源是否只能读取一次（如输入流）
+	 */
+	public SourceRequestBody(MediaType contentType, Opener opener, long contentLength, boolean oneShot) {
+		this.contentType = contentType;
+		this.opener = opener;
+		this.contentLength = contentLength;
+		this.oneShot = oneShot;
+	}
+
+	@Override
+	public MediaType contentType() {
+		return contentType;
+	}
+
+	@Override
+	public long contentLength() {
+		return contentLength;
+	}
+
+	@Override
+	public boolean isOneShot() {
+		return oneShot;
+	}
+
+	@Override
+	public void writeTo(BufferedSink sink) throws IOException {
+		if (!written.compareAndSet(false, true) && oneShot) {
+			throw new IOException("该请求体的数据源只能读取一次！");
+		}
+		try (Source source = opener.open()) {
+			sink.writeAll(source);
+		}
+	}
+
+	/**
+	 * 包装一个请求体使其只能写出一次，用于包含一次性分段的 MultipartBody
+	 * @param body 请求体
+	 * @return 一次性的请求体
+	 */
+	public static RequestBody oneShot(RequestBody body) {
+		return new RequestBody() {
+
+			@Override
+			public MediaType contentType() {
+				return body.contentType();
+			}
+
+			@Override
+			public long contentLength() throws IOException {
+				return body.contentLength();
+			}
+
+			@Override
+			public boolean isOneShot() {
+				return true;
+			}
+
+			@Override
+			public void writeTo(BufferedSink sink) throws IOException {
+				body.writeTo(sink);
+			}
+
+		};
+	}
+
+}
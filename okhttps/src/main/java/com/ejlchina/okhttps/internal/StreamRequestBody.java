@@ -0,0 +1,68 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import com.ejlchina.okhttps.MsgConvertor;
+import com.ejlchina.okhttps.SerializeException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * 流式请求体，在写出时才将对象直接序列化到连接中，长度未知（分块传输）
+ * 可重复写出，每次写出都重新序列化
+ * @since 2.0.0
+ */
+public class StreamRequestBody extends RequestBody {
+
+	private final MediaType contentType;
+	private final MsgConvertor convertor;
+	private final Object object;
+	private final String dateFormat;
+	private final Charset charset;
+
+	public StreamRequestBody(MediaType contentType, MsgConvertor convertor, Object object,
+			String dateFormat, Charset charset) {
+		this.contentType = contentType;
+		this.convertor = convertor;
+		this.object = object;
+		this.dateFormat = dateFormat;
+		this.charset = charset;
+	}
+
+	@Override
+	public MediaType contentType() {
+		return contentType;
+	}
+
+	@Override
+	public long contentLength() {
+		return -1;
+	}
+
+	@Override
+	public void writeTo(BufferedSink sink) throws IOException {
+		// 防止转换器关闭输出流时连带关闭 sink
+		OutputStream out = new FilterOutputStream(sink.outputStream()) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				this.out.write(b, off, len);
+			}
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+		try {
+			convertor.serialize(object, dateFormat, charset, out);
+		} catch (RuntimeException e) {
+			throw new SerializeException("Java Bean [" + object + "] 序列化异常", e);
+		}
+		out.flush();
+	}
+
+}
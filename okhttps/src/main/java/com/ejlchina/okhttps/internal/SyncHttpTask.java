@@ -2,11 +2,14 @@ package com.ejlchina.okhttps.internal;
 
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.ejlchina.okhttps.Cancelable;
 import com.ejlchina.okhttps.HTTP;
 import com.ejlchina.okhttps.HttpResult;
 import com.ejlchina.okhttps.HttpTask;
+import com.ejlchina.okhttps.RequestPrototype;
 import com.ejlchina.okhttps.HttpResult.State;
 
 import okhttp3.Call;
@@ -23,6 +26,11 @@ public class SyncHttpTask extends HttpTask<SyncHttpTask> {
 	public SyncHttpTask(HttpClient client, String url) {
 		super(client, url);
 	}
+
+	public SyncHttpTask(HttpClient client, RequestPrototype prototype) {
+		super(client, prototype);
+	}
+
 	
     /**
      * 发起 GET 请求（Rest：获取资源，幂等）
@@ -85,20 +93,33 @@ public class SyncHttpTask extends HttpTask<SyncHttpTask> {
 		SyncHttpCall httpCall = new SyncHttpCall();
 		// 注册标签任务
 		registeTagTask(httpCall);
+		startDeadline(() -> {
+			httpCall.cancel();
+			// 已响应时，中断响应体的传输
+			Call call = httpCall.call;
+			if (call != null) {
+				call.cancel();
+			}
+		});
 		CountDownLatch latch = new CountDownLatch(1);
     	httpClient.preprocess(this, () -> {
-			synchronized (httpCall) {
+			httpCall.lock.lock();
+			try {
 				if (httpCall.canceled) {
-					result.exception(State.CANCELED, null);
+					cancelDeadline();
+					result.exception(isDeadlineExceeded() ? State.TIMEOUT : State.CANCELED, null);
 					latch.countDown();
 					return;
 				}
 				httpCall.call = prepareCall(method);
+			} finally {
+				httpCall.lock.unlock();
 			}
             try {
-				result.response(httpCall.call.execute());
+				result.response(deadlineResponse(httpCall.call.execute()));
 				httpCall.done = true;
             } catch (IOException e) {
+				cancelDeadline();
 				result.exception(toState(e, true), e);
             } finally {
 				latch.countDown();
@@ -110,8 +131,10 @@ public class SyncHttpTask extends HttpTask<SyncHttpTask> {
 		}
 		// 移除标签任务
 		removeTagTask();
+		closeSources();
 		if (timeout) {
 			httpCall.cancel();
+			cancelDeadline();
 			return timeoutResult();
 		}
 		IOException e = result.getError();
@@ -129,17 +152,23 @@ public class SyncHttpTask extends HttpTask<SyncHttpTask> {
 		Call call;
 		boolean done = false;
 		boolean canceled = false;
+		final Lock lock = new ReentrantLock();
 
 		@Override
-		public synchronized boolean cancel() {
-			if (done) {
-				return false;
-			}
-			if (call != null) {
-				call.cancel();
+		public boolean cancel() {
+			lock.lock();
+			try {
+				if (done) {
+					return false;
+				}
+				if (call != null) {
+					call.cancel();
+				}
+				canceled = true;
+				return true;
+			} finally {
+				lock.unlock();
 			}
-			canceled = true;
-			return true;
 		}
 
 	}
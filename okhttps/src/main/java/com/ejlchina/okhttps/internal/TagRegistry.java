@@ -0,0 +1,237 @@
+package com.ejlchina.okhttps.internal;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.ejlchina.okhttps.Cancelable;
+import com.ejlchina.okhttps.HttpTask;
+
+/**
+ * 标签任务注册表
+ * 以标签的点分段（如 "A.B" 分为 "A" 与 "B"）为索引，任务完成时通过持有的句柄 O(1) 移除，
+ * 过期的任务由后台清理（只在有标签任务时才会被调度），不占用请求线程
+ */
+public class TagRegistry {
+
+    // 标签分段索引
+    private final Map<String, Set<TagTask>> segments = new ConcurrentHashMap<>();
+    // 按长度归类的分段，取消时只需在更长的分段中查找包含关系
+    private final Map<Integer, Set<String>> lengths = new ConcurrentHashMap<>();
+    // 所有的标签任务
+    private final Set<TagTask> tasks = ConcurrentHashMap.newKeySet();
+    // 是否已调度清理
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    // 任务的最大存活时间（纳秒），小于等于 0 表示不过期
+    private final long expireNanos;
+    private final HashedWheelTimer timer;
+
+    public TagRegistry(long expireMillis, HashedWheelTimer timer) {
+        this.expireNanos = TimeUnit.MILLISECONDS.toNanos(expireMillis);
+        this.timer = timer;
+    }
+
+    /**
+     * 注册一个标签任务
+     * @param tag 标签
+     * @param canceler 取消器
+     * @param task 所属任务
+     * @return 标签任务句柄
+     */
+    public TagTask add(String tag, Cancelable canceler, HttpTask<?> task) {
+        TagTask tagTask = new TagTask(tag, canceler, task);
+        tagTask.attach();
+        scheduleSweep();
+        return tagTask;
+    }
+
+    /**
+     * 取消标签包含指定 tag 的任务
+     * @param tag 标签
+     * @return 被取消的任务数量
+     */
+    public int cancel(String tag) {
+        if (tag == null || tag.isEmpty()) {
+            return 0;
+        }
+        // 标签包含 tag，则必有某个分段包含 tag 的最长分段：要么与之相等，要么比它更长
+        String probe = longestSegment(tag);
+        Set<TagTask> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        match(segments.get(probe), tag, matched);
+        for (Map.Entry<Integer, Set<String>> entry : lengths.entrySet()) {
+            if (entry.getKey() <= probe.length()) {
+                continue;
+            }
+            for (String segment : entry.getValue()) {
+                if (segment.contains(probe)) {
+                    match(segments.get(segment), tag, matched);
+                }
+            }
+        }
+        int count = 0;
+        for (TagTask tagTask : matched) {
+            if (tagTask.remove() && tagTask.canceler.cancel()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void match(Set<TagTask> candidates, String tag, Set<TagTask> matched) {
+        if (candidates == null) {
+            return;
+        }
+        for (TagTask tagTask : candidates) {
+            if (tagTask.tag.contains(tag)) {
+                matched.add(tagTask);
+            }
+        }
+    }
+
+    /**
+     * 清空所有标签任务
+     */
+    public void clear() {
+        for (TagTask tagTask : tasks) {
+            tagTask.remove();
+        }
+    }
+
+    /**
+     * @return 标签任务数量
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    private void index(TagTask tagTask) {
+        for (String segment : tagTask.segments) {
+            segments.compute(segment, (String key, Set<TagTask> set) -> {
+                if (set == null) {
+                    set = ConcurrentHashMap.newKeySet();
+                    lengths.compute(key.length(), (Integer length, Set<String> keys) -> {
+                        if (keys == null) {
+                            keys = ConcurrentHashMap.newKeySet();
+                        }
+                        keys.add(key);
+                        return keys;
+                    });
+                }
+                set.add(tagTask);
+                return set;
+            });
+        }
+    }
+
+    private void unindex(TagTask tagTask) {
+        for (String segment : tagTask.segments) {
+            segments.computeIfPresent(segment, (String key, Set<TagTask> set) -> {
+                set.remove(tagTask);
+                if (!set.isEmpty()) {
+                    return set;
+                }
+                lengths.computeIfPresent(key.length(), (Integer length, Set<String> keys) -> {
+                    keys.remove(key);
+                    return keys.isEmpty() ? null : keys;
+                });
+                return null;
+            });
+        }
+    }
+
+    private void scheduleSweep() {
+        if (expireNanos > 0 && sweeping.compareAndSet(false, true)) {
+            long delay = Math.max(TimeUnit.NANOSECONDS.toMillis(expireNanos) / 2, 1000);
+            timer.newTimeout(this::sweep, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (TagTask tagTask : tasks) {
+            if (now - tagTask.createAt > expireNanos) {
+                tagTask.remove();
+            }
+        }
+        sweeping.set(false);
+        // 仍有任务时继续调度，否则释放对本注册表的引用
+        if (!tasks.isEmpty()) {
+            scheduleSweep();
+        }
+    }
+
+    private static String longestSegment(String tag) {
+        String longest = "";
+        for (String segment : tag.split("\\.")) {
+            if (segment.length() > longest.length()) {
+                longest = segment;
+            }
+        }
+        return longest;
+    }
+
+    public class TagTask {
+
+        volatile String tag;
+        String[] segments;
+        Cancelable canceler;
+        HttpTask<?> task;
+        long createAt;
+        boolean removed = false;
+
+        TagTask(String tag, Cancelable canceler, HttpTask<?> task) {
+            this.tag = tag;
+            this.segments = tag.split("\\.");
+            this.canceler = canceler;
+            this.task = task;
+            this.createAt = System.nanoTime();
+        }
+
+        /**
+         * 加入注册表，与 remove 互斥，并发的 clear 不会留下失效的索引
+         */
+        synchronized void attach() {
+            tasks.add(this);
+            index(this);
+        }
+
+        /**
+         * 更新标签，重建索引
+         * @param tag 新标签
+         */
+        public synchronized void setTag(String tag) {
+            if (removed) {
+                this.tag = tag;
+                return;
+            }
+            unindex(this);
+            this.tag = tag;
+            this.segments = tag.split("\\.");
+            index(this);
+        }
+
+        /**
+         * 从注册表中移除
+         * @return 是否是本次移除的（已被移除过则返回 false）
+         */
+        public synchronized boolean remove() {
+            if (removed) {
+                return false;
+            }
+            removed = true;
+            tasks.remove(this);
+            unindex(this);
+            return true;
+        }
+
+        public HttpTask<?> getTask() {
+            return task;
+        }
+
+    }
+
+}
@@ -3,6 +3,11 @@ package com.ejlchina.okhttps.internal;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
@@ -11,12 +16,18 @@ import com.ejlchina.okhttps.Download;
 import com.ejlchina.okhttps.HttpResult;
 import com.ejlchina.okhttps.HttpTask;
 import com.ejlchina.okhttps.MsgConvertor;
+import com.ejlchina.okhttps.OkHttps;
 import com.ejlchina.okhttps.OnCallback;
 import com.ejlchina.okhttps.TaskListener;
 import com.ejlchina.okhttps.HttpResult.State;
 
+import okhttp3.MediaType;
+
 public class TaskExecutor {
 
+    // 最多缓存的类型索引数，响应的 Content-Type 由服务端决定，需防止无限增长
+    static final int MAX_TYPE_CHAINS = 64;
+
     private Executor ioExecutor;
     private Executor mainExecutor;
     private DownListener downloadListener;
@@ -24,7 +35,13 @@ public class TaskExecutor {
     private TaskListener<IOException> exceptionListener;
     private TaskListener<State> completeListener;
     private MsgConvertor[] msgConvertors;
-    
+    // 按优先级（后注册者优先）排列的全部转换器
+    private final MsgConvertor[] convertorChain;
+    // 类型（如 json、xml）到匹配转换器链的索引
+    private final Map<String, MsgConvertor[]> typeChains = new ConcurrentHashMap<>();
+    // 编码到（媒体类型到已解析 MediaType）的缓存
+    private final Map<Charset, Map<String, MediaType>> mediaTypes = new ConcurrentHashMap<>();
+
     public TaskExecutor(Executor ioExecutor, Executor mainExecutor, DownListener downloadListener, 
             TaskListener<HttpResult> responseListener, TaskListener<IOException> exceptionListener, 
             TaskListener<State> completeListener, MsgConvertor[] msgConvertors) {
@@ -35,6 +52,13 @@ public class TaskExecutor {
         this.exceptionListener = exceptionListener;
         this.completeListener = completeListener;
         this.msgConvertors = msgConvertors;
+        this.convertorChain = new MsgConvertor[msgConvertors.length];
+        for (int i = 0; i < msgConvertors.length; i++) {
+            convertorChain[i] = msgConvertors[msgConvertors.length - 1 - i];
+        }
+        for (String type : new String[] { OkHttps.JSON, OkHttps.XML, OkHttps.FORM, OkHttps.PROTOBUF }) {
+            typeChains.put(type, buildChain(type));
+        }
     }
 
     public Executor getExecutor(boolean onIoThread) {
@@ -116,48 +140,123 @@ public class TaskExecutor {
         }
     }
 
+    /**
+     * @since 2.0.0
+     * 查找与类型匹配的转换器，优先级与 doMsgConvert 一致
+     * @param type 类型，如 json、xml
+     * @return 转换器，没有则返回 null
+     */
+    public MsgConvertor matchConvertor(String type) {
+        for (MsgConvertor convertor : chain(type)) {
+            if (convertor.mediaType() != null) {
+                return convertor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @since 2.0.0
+     * 将对象展开为表单参数，与表单请求体使用同一个表单转换器的规则，
+     * 没有表单转换器时按 JavaBeans 规范读取属性
+     * @param object Java Bean 或 Map
+     * @param dateFormat 日期格式，可为 null
+     * @param charset 编码
+     * @param sink 参数接收者
+     */
+    public void encodeForm(Object object, String dateFormat, Charset charset, FormEncoder.Sink sink) {
+        MsgConvertor convertor = matchConvertor(OkHttps.FORM);
+        if (convertor instanceof MsgConvertor.FormConvertor) {
+            ((MsgConvertor.FormConvertor) convertor).encode(object, dateFormat, charset, sink);
+        } else {
+            FormEncoder.encode(object, dateFormat, sink);
+        }
+    }
+
+    /**
+     * @since 2.0.0
+     * 获取与类型匹配的转换器的媒体类型（附带编码），解析结果按编码缓存复用
+     * @param type 类型，如 json、xml
+     * @param charset 编码
+     * @return MediaType
+     */
+    public MediaType mediaType(String type, Charset charset) {
+        MsgConvertor convertor = matchConvertor(type);
+        String mediaType = convertor != null ? convertor.mediaType() : "application/x-www-form-urlencoded";
+        return parseMediaType(mediaType, charset);
+    }
+
+    /**
+     * @since 2.0.0
+     * 解析附带编码的媒体类型，相同的媒体类型与编码只解析一次
+     * @param mediaType 媒体类型，如 application/json
+     * @param charset 编码
+     * @return MediaType
+     */
+    public MediaType parseMediaType(String mediaType, Charset charset) {
+        Map<String, MediaType> parsed = mediaTypes.get(charset);
+        if (parsed == null) {
+            parsed = mediaTypes.computeIfAbsent(charset, key -> new ConcurrentHashMap<>());
+        }
+        MediaType result = parsed.get(mediaType);
+        if (result == null) {
+            result = parsed.computeIfAbsent(mediaType, key -> MediaType.parse(key + "; charset=" + charset.name()));
+        }
+        return result;
+    }
+
     public <V> V doMsgConvert(ConvertFunc<V> callable) {
         Data<V> vData = doMsgConvert(null, callable);
         return vData != null ? vData.data : null;
     }
 
     public <V> Data<V> doMsgConvert(String type, ConvertFunc<V> callable) {
-        Throwable cause = null;
-        for (int i = msgConvertors.length - 1; i >= 0; i--) {
-            MsgConvertor convertor = msgConvertors[i];
-            String mediaType = convertor.mediaType();
-            if (type != null && (mediaType == null || !mediaType.contains(type))) {
-                continue;
-            }
-            if (callable == null && mediaType != null) {
-                return new Data<>(null, mediaType);
-            }
+        if (callable == null) {
+            MsgConvertor convertor = matchConvertor(type);
+            return new Data<>(null, convertor != null ? convertor.mediaType() : "application/x-www-form-urlencoded");
+        }
+        // 失败的转换器只记录为被抑制的异常，不再逐个拼接异常链
+        HttpException error = null;
+        for (MsgConvertor convertor : chain(type)) {
             try {
-                assert callable != null;
-                return new Data<>(callable.apply(convertor), mediaType);
+                return new Data<>(callable.apply(convertor), convertor.mediaType());
             } catch (Exception e) {
-                if (cause != null) {
-                    initRootCause(e, cause);
+                if (error == null) {
+                    error = new HttpException("转换失败", e);
+                } else {
+                    error.addSuppressed(e);
                 }
-                cause = e;
             }
         }
-        if (callable == null) {
-            return new Data<>(null, "application/x-www-form-urlencoded");
-        }
-        if (cause != null) {
-            throw new HttpException("转换失败", cause);
+        if (error != null) {
+            throw error;
         }
-
         throw new HttpException("没有匹配[" + type + "]类型的转换器！");
     }
 
-    private void initRootCause(Throwable throwable, Throwable cause) {
-        Throwable lastCause = throwable.getCause();
-        if (lastCause != null) {
-            initRootCause(lastCause, cause);
+    private MsgConvertor[] chain(String type) {
+        if (type == null) {
+            return convertorChain;
+        }
+        MsgConvertor[] chain = typeChains.get(type);
+        if (chain == null) {
+            if (typeChains.size() >= MAX_TYPE_CHAINS) {
+                return buildChain(type);
+            }
+            chain = typeChains.computeIfAbsent(type, this::buildChain);
+        }
+        return chain;
+    }
+
+    private MsgConvertor[] buildChain(String type) {
+        List<MsgConvertor> chain = new ArrayList<>();
+        for (MsgConvertor convertor : convertorChain) {
+            String mediaType = convertor.mediaType();
+            if (mediaType != null && mediaType.contains(type)) {
+                chain.add(convertor);
+            }
         }
-        throwable.initCause(cause);
+        return chain.toArray(new MsgConvertor[0]);
     }
 
     /**
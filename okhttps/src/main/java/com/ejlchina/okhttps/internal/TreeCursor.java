@@ -0,0 +1,156 @@
+package com.ejlchina.okhttps.internal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.ejlchina.okhttps.JsonPath;
+
+/**
+ * 已解析的对象树（Map、List 与简单值）上的报文游标
+ * 用于不支持流式解析时，在完整解析的结果上提取路径
+ * @since 2.0.0
+ */
+public class TreeCursor implements JsonPath.Cursor {
+
+	private final Deque<Iterator<?>> stack = new ArrayDeque<>();
+	// 下一个值，ready 为 false 时尚未从所在的数组中取出
+	private Object value;
+	private boolean ready = true;
+
+	public TreeCursor(Object root) {
+		this.value = root;
+	}
+
+	/**
+	 * 在对象树上提取目标
+	 * @param root 对象树的根
+	 * @param target 提取目标
+	 * @param <T> 值的泛型
+	 * @return 提取目标
+	 */
+	public static <T> JsonPath.Target<T> extract(Object root, JsonPath.Target<T> target) {
+		try {
+			JsonPath.extract(new TreeCursor(root), target);
+		} catch (IOException e) {
+			throw new HttpException("路径提取异常", e);
+		}
+		return target;
+	}
+
+	@Override
+	public Kind peek() {
+		Object value = next();
+		if (value instanceof Map) {
+			return Kind.OBJECT;
+		}
+		if (value instanceof List) {
+			return Kind.ARRAY;
+		}
+		return Kind.VALUE;
+	}
+
+	@Override
+	public void beginObject() {
+		stack.push(((Map<?, ?>) consume()).entrySet().iterator());
+	}
+
+	@Override
+	public void endObject() {
+		stack.pop();
+	}
+
+	@Override
+	public void beginArray() {
+		stack.push(((List<?>) consume()).iterator());
+	}
+
+	@Override
+	public void endArray() {
+		stack.pop();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return stack.peek().hasNext();
+	}
+
+	@Override
+	public String nextName() {
+		Map.Entry<?, ?> entry = (Map.Entry<?, ?>) stack.peek().next();
+		value = entry.getValue();
+		ready = true;
+		return String.valueOf(entry.getKey());
+	}
+
+	@Override
+	public void skipValue() {
+		consume();
+	}
+
+	@Override
+	public <T> T read(Class<T> type) {
+		Object value = consume();
+		if (value == null || type.isInstance(value)) {
+			return type.cast(value);
+		}
+		if (type == String.class) {
+			return type.cast(value.toString());
+		}
+		Object converted = convert(value, type);
+		if (converted == null) {
+			throw new HttpException("无法将 " + value.getClass().getName() + " 转换为 " + type.getName());
+		}
+		return type.cast(converted);
+	}
+
+	private Object next() {
+		if (!ready) {
+			value = stack.peek().next();
+			ready = true;
+		}
+		return value;
+	}
+
+	private Object consume() {
+		Object value = next();
+		ready = false;
+		return value;
+	}
+
+	private static Object convert(Object value, Class<?> type) {
+		if (type == Boolean.class) {
+			return Boolean.valueOf(value.toString());
+		}
+		BigDecimal number;
+		try {
+			number = new BigDecimal(value.toString());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		if (type == Integer.class) {
+			return number.intValue();
+		}
+		if (type == Long.class) {
+			return number.longValue();
+		}
+		if (type == Double.class) {
+			return number.doubleValue();
+		}
+		if (type == Float.class) {
+			return number.floatValue();
+		}
+		if (type == Short.class) {
+			return number.shortValue();
+		}
+		if (type == BigDecimal.class) {
+			return number;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,184 @@
+package com.ejlchina.okhttps.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+
+/**
+ * 预编译的 URL 模板
+ * 每个不同的模板只解析一次 {name} 形式的路径参数，构建时直接拼接编码后的参数值，
+ * 不带路径参数的模板直接缓存解析好的 HttpUrl
+ * @since 2.0.0
+ */
+public class UrlTemplate {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String template;
+    // 字面片段，比参数多一个
+    private final String[] literals;
+    // 路径参数名，与 literals 交替出现
+    private final String[] names;
+    private final Set<String> nameSet;
+    // 无路径参数时预先解析的 URL
+    private final HttpUrl url;
+
+    private UrlTemplate(String template, List<String> literals, List<String> names) {
+        this.template = template;
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        this.nameSet = names.isEmpty() ? Collections.emptySet() : new HashSet<>(names);
+        this.url = names.isEmpty() ? parseUrl(template) : null;
+    }
+
+    /**
+     * 解析 URL 模板
+     * @param template 模板，如 http://api.demo.com/users/{id}
+     * @return UrlTemplate
+     */
+    public static UrlTemplate parse(String template) {
+        if (template == null || template.trim().isEmpty()) {
+            throw new HttpException("url 不能为空！");
+        }
+        String url = template.trim();
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int open = url.indexOf('{');
+        while (open >= 0) {
+            int close = url.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            String name = url.substring(open + 1, close);
+            if (isParamName(name)) {
+                literals.add(url.substring(start, open));
+                names.add(name);
+                start = close + 1;
+                open = url.indexOf('{', start);
+            } else {
+                open = url.indexOf('{', open + 1);
+            }
+        }
+        literals.add(url.substring(start));
+        return new UrlTemplate(url, literals, names);
+    }
+
+    private static boolean isParamName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z'
+                    || c >= '0' && c <= '9' || c == '_' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 构建最终的请求 URL
+     * @param pathParams 路径参数，可为 null
+     * @param urlParams 查询参数，可为 null
+     * @return HttpUrl
+     */
+    public HttpUrl build(Map<String, String> pathParams, Map<String, String> urlParams) {
+        if (pathParams != null) {
+            for (String name : pathParams.keySet()) {
+                if (!nameSet.contains(name)) {
+                    throw new HttpException("pathParameter [ " + name + " ] 不存在于 url [ " + template + " ]");
+                }
+            }
+        }
+        HttpUrl httpUrl = url;
+        if (httpUrl == null) {
+            StringBuilder sb = new StringBuilder(template.length() + 16 * names.length);
+            for (int i = 0; i < names.length; i++) {
+                sb.append(literals[i]);
+                String value = pathParams != null ? pathParams.get(names[i]) : null;
+                if (value == null) {
+                    throw new HttpException("url 里有 pathParameter [ " + names[i] + " ] 没有设置，你必须先调用 addPathPara 为其设置！");
+                }
+                encodePathSegment(sb, value);
+            }
+            sb.append(literals[names.length]);
+            httpUrl = parseUrl(sb.toString());
+        }
+        if (urlParams != null && !urlParams.isEmpty()) {
+            HttpUrl.Builder builder = httpUrl.newBuilder();
+            for (Map.Entry<String, String> entry : urlParams.entrySet()) {
+                builder.addQueryParameter(entry.getKey(), entry.getValue());
+            }
+            httpUrl = builder.build();
+        }
+        return httpUrl;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return 模板中的路径参数名
+     */
+    public Set<String> getNames() {
+        return nameSet;
+    }
+
+    private static HttpUrl parseUrl(String url) {
+        // OkHttp 以 http(s) 表示 WebSocket 的 URL
+        if (url.regionMatches(true, 0, "ws:", 0, 3)) {
+            url = "http:" + url.substring(3);
+        } else if (url.regionMatches(true, 0, "wss:", 0, 4)) {
+            url = "https:" + url.substring(4);
+        }
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            throw new HttpException("url 格式错误：" + url);
+        }
+        return httpUrl;
+    }
+
+    // 按 RFC 3986 的 pchar 编码路径参数值，'/'、'?'、'#'、'%' 等均会被编码
+    private static void encodePathSegment(StringBuilder sb, String value) {
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (isPathChar(c)) {
+                sb.append(c);
+                continue;
+            }
+            int end = i + 1;
+            if (Character.isHighSurrogate(c) && end < len && Character.isLowSurrogate(value.charAt(end))) {
+                end++;
+            }
+            for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i = end - 1;
+        }
+    }
+
+    private static boolean isPathChar(char c) {
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9') {
+            return true;
+        }
+        switch (c) {
+            case '-': case '.': case '_': case '~':
+            case '!': case '$': case '&': case '\'': case '(': case ')':
+            case '*': case '+': case ',': case ';': case '=': case ':': case '@':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+}
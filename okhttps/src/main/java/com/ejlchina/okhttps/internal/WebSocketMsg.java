@@ -17,16 +17,40 @@ public class WebSocketMsg extends AbstractBody implements Message {
 
 	private String text;
 	private ByteString bytes;
+	private String msgType;
 	
 	
 	public WebSocketMsg(String text, TaskExecutor taskExecutor, Charset charset) {
+		this(text, taskExecutor, charset, null);
+	}
+
+	public WebSocketMsg(ByteString bytes, TaskExecutor taskExecutor, Charset charset) {
+		this(bytes, taskExecutor, charset, null);
+	}
+
+	/**
+	 * @since 2.0.0
+	 * @param msgType 消息类型，如 json、xml，用于选择转换器
+	 */
+	public WebSocketMsg(String text, TaskExecutor taskExecutor, Charset charset, String msgType) {
 		super(taskExecutor, charset);
 		this.text = text;
+		this.msgType = msgType;
 	}
 
-	public WebSocketMsg(ByteString bytes, TaskExecutor taskExecutor, Charset charset) {
+	/**
+	 * @since 2.0.0
+	 * @param msgType 消息类型，如 json、xml，用于选择转换器
+	 */
+	public WebSocketMsg(ByteString bytes, TaskExecutor taskExecutor, Charset charset, String msgType) {
 		super(taskExecutor, charset);
 		this.bytes = bytes;
+		this.msgType = msgType;
+	}
+
+	@Override
+	protected String msgType() {
+		return msgType;
 	}
 	
 	@Override
@@ -4,6 +4,8 @@ import java.net.SocketException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.ejlchina.okhttps.*;
 import com.ejlchina.okhttps.WebSocket.Close;
@@ -40,13 +42,16 @@ public class WebSocketTask extends HttpTask<WebSocketTask> {
 		WebSocketImpl socket = new WebSocketImpl(httpClient.executor, msgType);
 		registeTagTask(socket);
 		httpClient.preprocess(this, () -> {
-			synchronized (socket) {
+			socket.lock.lock();
+			try {
     			if (socket.cancelOrClosed) {
 					removeTagTask();
         		} else {
 					Request request = prepareRequest("GET");
 					httpClient.webSocket(request, new MessageListener(socket));
 				}
+			} finally {
+				socket.lock.unlock();
 			}
     	}, skipPreproc, skipSerialPreproc);
 		return socket;
@@ -78,7 +83,7 @@ public class WebSocketTask extends HttpTask<WebSocketTask> {
 		@Override
 		public void onMessage(okhttp3.WebSocket webSocket, String text) {
 			if (onMessage != null) {
-				onMessage.on(this.webSocket, new WebSocketMsg(text, httpClient.executor, charset));
+				onMessage.on(this.webSocket, new WebSocketMsg(text, httpClient.executor, charset, this.webSocket.msgType));
 			}
 		}
 
@@ -86,7 +91,7 @@ public class WebSocketTask extends HttpTask<WebSocketTask> {
 		@Override
 		public void onMessage(okhttp3.WebSocket webSocket, ByteString bytes) {
 			if (onMessage != null) {
-				onMessage.on(this.webSocket, new WebSocketMsg(bytes, httpClient.executor, charset));
+				onMessage.on(this.webSocket, new WebSocketMsg(bytes, httpClient.executor, charset, this.webSocket.msgType));
 			}
 		}
 
@@ -139,6 +144,8 @@ public class WebSocketTask extends HttpTask<WebSocketTask> {
 
 		private String msgType;
 
+		final Lock lock = new ReentrantLock();
+
 		public WebSocketImpl(TaskExecutor taskExecutor, String msgType) {
 			this.taskExecutor = taskExecutor;
 			this.msgType = msgType;
@@ -149,21 +156,31 @@ public class WebSocketTask extends HttpTask<WebSocketTask> {
 		}
 
 		@Override
-		public synchronized boolean cancel() {
-			if (webSocket != null) {
-				webSocket.cancel();
+		public boolean cancel() {
+			lock.lock();
+			try {
+				if (webSocket != null) {
+					webSocket.cancel();
+				}
+				cancelOrClosed = true;
+				return true;
+			} finally {
+				lock.unlock();
 			}
-			cancelOrClosed = true;
-			return true;
 		}
 
 		@Override
-		public synchronized boolean close(int code, String reason) {
-			if (webSocket != null) {
-				webSocket.close(code, reason);
+		public boolean close(int code, String reason) {
+			lock.lock();
+			try {
+				if (webSocket != null) {
+					webSocket.close(code, reason);
+				}
+				cancelOrClosed = true;
+				return true;
+			} finally {
+				lock.unlock();
 			}
-			cancelOrClosed = true;
-			return true;
 		}
 
 		@Override
@@ -187,23 +204,29 @@ public class WebSocketTask extends HttpTask<WebSocketTask> {
 			if (msg == null) {
 				return false;
 			}
-			synchronized (queues) {
+			lock.lock();
+			try {
 				if (webSocket != null) {
 					return send(webSocket, msg);
 				} else {
 					queues.add(msg);
 				}
+			} finally {
+				lock.unlock();
 			}
 			return true;
 		}
 		
 		void setWebSocket(okhttp3.WebSocket webSocket) {
-			synchronized (queues) {
+			lock.lock();
+			try {
 				for (Object msg: queues) {
 					send(webSocket, msg);
 				}
 				this.webSocket = webSocket;
 				queues.clear();
+			} finally {
+				lock.unlock();
 			}
 		}
 		
@@ -0,0 +1,135 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.Preprocessor.PreChain;
+import com.ejlchina.okhttps.internal.AsyncHttpTask;
+import com.ejlchina.okhttps.internal.BatchTask.BatchCall;
+import com.ejlchina.okhttps.internal.BatchTask.BatchStats;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试批量请求
+ */
+public class BatchTests extends BaseTest {
+
+    HTTP http = HTTP.builder().build();
+
+    @Test
+    public void testBatch() throws Exception {
+        List<Integer> ids = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        for (int i = 0; i < ids.size(); i++) {
+            server.enqueue(new MockResponse().setBody("OK"));
+        }
+        Set<String> paths = ConcurrentHashMap.newKeySet();
+        BatchStats stats = http.batch()
+                .concurrency(3)
+                .addPathParas(mockUrl + "/users/{id}", "id", ids)
+                .setOnResult((AsyncHttpTask task, HttpResult result) -> {
+                    paths.add(task.getUrl());
+                    result.close();
+                })
+                .start()
+                .getFuture()
+                .get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(10, stats.getTotal());
+        Assert.assertEquals(10, stats.getSucceeded());
+        Assert.assertEquals(0, stats.getFailed());
+        Assert.assertEquals(1, paths.size());
+        Assert.assertEquals(10, server.getRequestCount());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setBody("OK")
+                    .setHeadersDelay(1, TimeUnit.SECONDS));
+        }
+        BatchCall call = http.batch()
+                .concurrency(2)
+                .add(mockUrl + "/users/{id}", HTTP.GET, Arrays.asList(1, 2, 3, 4, 5),
+                        (AsyncHttpTask task, Integer id) -> task.addPathPara("id", id))
+                .start();
+        sleep(100);
+        Assert.assertTrue(call.cancel());
+        BatchStats stats = call.getFuture().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(5, stats.getCanceled());
+    }
+
+    @Test
+    public void testManySyncCompletions() throws Exception {
+        // 预处理器直接取消任务，使每个任务在启动时同步完成
+        HTTP http = HTTP.builder()
+                .addPreprocessor((PreChain chain) -> chain.getTask().cancel())
+                .build();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            ids.add(i);
+        }
+        BatchCall call = http.batch()
+                .concurrency(1)
+                .addPathParas(mockUrl + "/users/{id}", "id", ids)
+                .start();
+        BatchStats stats = call.getFuture().get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(call.isDone());
+        Assert.assertEquals(20000, stats.getCompleted());
+        Assert.assertEquals(20000, stats.getCanceled());
+    }
+
+    @Test
+    public void testOnResultThrows() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            server.enqueue(new MockResponse().setBody("OK"));
+        }
+        AtomicInteger calls = new AtomicInteger();
+        BatchCall call = http.batch()
+                .concurrency(2)
+                .addPathParas(mockUrl + "/users/{id}", "id", Arrays.asList(1, 2, 3, 4, 5, 6))
+                .setOnResult((AsyncHttpTask task, HttpResult result) -> {
+                    result.close();
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("boom");
+                })
+                .start();
+        try {
+            call.getFuture().get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals("boom", e.getCause().getMessage());
+        }
+        Assert.assertEquals(6, calls.get());
+        Assert.assertEquals(6, call.getStats().getSucceeded());
+        Assert.assertEquals(6, server.getRequestCount());
+    }
+
+    @Test
+    public void testCanceledLatency() throws Exception {
+        server.enqueue(new MockResponse().setBody("OK")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("OK")
+                .setHeadersDelay(5, TimeUnit.SECONDS));
+        BatchCall call = http.batch()
+                .concurrency(1)
+                .addPathParas(mockUrl + "/users/{id}", "id", Arrays.asList(1, 2, 3, 4, 5))
+                .start();
+        sleep(500);
+        Assert.assertTrue(call.cancel());
+        BatchStats stats = call.getFuture().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, stats.getSucceeded());
+        Assert.assertEquals(4, stats.getCanceled());
+        // 被取消的任务不计入平均耗时
+        Assert.assertTrue(stats.getAvgLatency() >= 300);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.CircuitBreaker;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 测试熔断器
+ */
+public class BreakerTests extends BaseTest {
+
+    @Test
+    public void testBreaker() {
+        List<String> changes = new CopyOnWriteArrayList<>();
+        CircuitBreaker breaker = new CircuitBreaker()
+                .window(4, 4)
+                .failureRate(0.5)
+                .openMillis(300)
+                .halfOpenCalls(1)
+                .setOnStateChange((host, from, to) -> changes.add(from + "->" + to));
+        HTTP http = HTTP.builder().circuitBreaker(breaker).build();
+
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            Assert.assertEquals(500, http.sync(mockUrl).get().getStatus());
+        }
+        // 熔断器打开，请求不会发出
+        HttpResult result = http.async(mockUrl).nothrow().get().getResult();
+        Assert.assertEquals(HttpResult.State.CIRCUIT_OPEN, result.getState());
+        result = http.sync(mockUrl).nothrow().get();
+        Assert.assertEquals(HttpResult.State.CIRCUIT_OPEN, result.getState());
+        Assert.assertEquals(4, server.getRequestCount());
+
+        sleep(400);
+        server.enqueue(new MockResponse().setBody("OK"));
+        Assert.assertEquals("OK", http.sync(mockUrl).get().getBody().toString());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("localhost"));
+        Assert.assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", changes.toString());
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.internal.HttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试合并相同的并发请求
+ */
+public class CoalesceTests extends BaseTest {
+
+    @Test
+    public void testCoalesce() {
+        HTTP http = HTTP.builder().coalesce().build();
+        server.enqueue(new MockResponse().setBody("Hello").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("World"));
+
+        HttpCall c1 = http.async(mockUrl + "/a").get();
+        HttpCall c2 = http.async(mockUrl + "/a").get();
+        HttpCall c3 = http.async(mockUrl + "/a").get();
+        // 每个等待者都能独立读取响应体
+        Assert.assertEquals("Hello", c1.getResult().getBody().toString());
+        Assert.assertEquals("Hello", c2.getResult().getBody().toString());
+        Assert.assertEquals("Hello", c3.getResult().getBody().toString());
+        Assert.assertEquals(1, server.getRequestCount());
+        Assert.assertEquals(2, ((HttpClient) http).getCollapsedCount());
+        // 完成后不再合并
+        Assert.assertEquals("World", http.sync(mockUrl + "/a").get().getBody().toString());
+    }
+
+    @Test
+    public void testCancelWaiter() {
+        HTTP http = HTTP.builder().build();
+        server.enqueue(new MockResponse().setBody("Hello").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("World"));
+
+        HttpCall c1 = http.async(mockUrl).coalesce().get();
+        HttpCall c2 = http.async(mockUrl).coalesce().get();
+        HttpCall c3 = http.async(mockUrl).addHeader("X-Id", "1").coalesce().nothrow().get();
+        c2.cancel();
+        // 请求头不同的请求不合并，两个请求到达的先后不确定
+        String b1 = c1.getResult().getBody().toString();
+        String b3 = c3.getResult().getBody().toString();
+        Assert.assertTrue(c2.isCanceled());
+        Assert.assertNotEquals(b1, b3);
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testWaiterThrows() {
+        HTTP http = HTTP.builder().coalesce().build();
+        server.enqueue(new MockResponse().setBody("Hello")
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS)
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+
+        // 第一个等待者未设置 onException 也未 nothrow，失败时其回调会抛出异常
+        HttpCall c1 = http.async(mockUrl + "/a").get();
+        HttpCall c2 = http.async(mockUrl + "/a").nothrow().get();
+        HttpCall c3 = http.async(mockUrl + "/a").nothrow().get();
+        HttpResult.State state = c1.getResult().getState();
+        Assert.assertNotEquals(HttpResult.State.RESPONSED, state);
+        Assert.assertEquals(state, c2.getResult().getState());
+        Assert.assertEquals(state, c3.getResult().getState());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.Array;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.Mapper;
+import com.ejlchina.okhttps.MsgConvertor;
+import com.ejlchina.okhttps.internal.HttpClient;
+import com.ejlchina.okhttps.internal.HttpException;
+import com.ejlchina.okhttps.internal.TaskExecutor;
+import okhttp3.MediaType;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConvertorTests extends BaseTest {
+
+    static class TextConvertor implements MsgConvertor {
+
+        final String mediaType;
+        final String text;
+        final AtomicInteger parsed = new AtomicInteger();
+
+        TextConvertor(String mediaType, String text) {
+            this.mediaType = mediaType;
+            this.text = text;
+        }
+
+        @Override
+        public String mediaType() {
+            return mediaType;
+        }
+
+        @Override
+        public Mapper toMapper(InputStream in, Charset charset) {
+            throw new UnsupportedOperationException(text);
+        }
+
+        @Override
+        public Array toArray(InputStream in, Charset charset) {
+            throw new UnsupportedOperationException(text);
+        }
+
+        @Override
+        public byte[] serialize(Object object, Charset charset) {
+            return serialize(object, null, charset);
+        }
+
+        @Override
+        public byte[] serialize(Object object, String dateFormat, Charset charset) {
+            return text.getBytes(charset);
+        }
+
+        @Override
+        public <T> T toBean(Class<T> type, InputStream in, Charset charset) {
+            parsed.incrementAndGet();
+            throw new UnsupportedOperationException(text);
+        }
+
+        @Override
+        public <T> List<T> toList(Class<T> type, InputStream in, Charset charset) {
+            throw new UnsupportedOperationException(text);
+        }
+
+    }
+
+    @Test
+    public void testDispatch() throws InterruptedException {
+        HTTP http = HTTP.builder()
+                .addMsgConvertor(new TextConvertor("application/json", "json-1"))
+                .addMsgConvertor(new TextConvertor("application/xml", "xml"))
+                .addMsgConvertor(new TextConvertor("application/json", "json-2"))
+                .build();
+        TaskExecutor executor = ((HttpClient) http).executor();
+        Assert.assertEquals("json-2", ((TextConvertor) executor.matchConvertor("json")).text);
+        Assert.assertEquals("xml", ((TextConvertor) executor.matchConvertor("xml")).text);
+        Assert.assertNull(executor.matchConvertor("yaml"));
+
+        MediaType type = executor.mediaType("json", StandardCharsets.UTF_8);
+        Assert.assertEquals("application/json; charset=UTF-8", type.toString());
+        Assert.assertSame(type, executor.mediaType("json", StandardCharsets.UTF_8));
+        Assert.assertEquals("application/x-www-form-urlencoded; charset=UTF-8",
+                executor.mediaType("yaml", StandardCharsets.UTF_8).toString());
+
+        server.enqueue(new MockResponse().setBody("OK"));
+        http.sync(mockUrl).bodyType("xml").setBodyPara(new User(1, "Jack")).post();
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("xml", request.getBody().readUtf8());
+        Assert.assertEquals("application/xml; charset=UTF-8", request.getHeader("Content-Type"));
+    }
+
+    @Test
+    public void testConvertFailure() {
+        HTTP http = HTTP.builder()
+                .addMsgConvertor(new TextConvertor("application/json", "json"))
+                .addMsgConvertor(new TextConvertor("application/xml", "xml"))
+                .build();
+        TaskExecutor executor = ((HttpClient) http).executor();
+        try {
+            executor.doMsgConvert((MsgConvertor c) -> c.toMapper(null, StandardCharsets.UTF_8));
+            Assert.fail();
+        } catch (HttpException e) {
+            Assert.assertEquals("xml", e.getCause().getMessage());
+            Assert.assertEquals(1, e.getSuppressed().length);
+            Assert.assertEquals("json", e.getSuppressed()[0].getMessage());
+        }
+    }
+
+    @Test
+    public void testContentType() {
+        TextConvertor xml = new TextConvertor("application/xml", "xml");
+        TextConvertor json = new TextConvertor("application/json", "json");
+        HTTP http = HTTP.builder()
+                .addMsgConvertor(xml)
+                .addMsgConvertor(json)
+                .build();
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/xml; charset=UTF-8").setBody("<a/>"));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/problem+json").setBody("{}"));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/plain").setBody("a"));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/plain").setBody("a"));
+
+        assertConvertFailed(() -> http.sync(mockUrl).get().getBody().toBean(User.class));
+        Assert.assertEquals(1, xml.parsed.get());
+        Assert.assertEquals(0, json.parsed.get());
+
+        assertConvertFailed(() -> http.sync(mockUrl).get().getBody().toBean(User.class));
+        Assert.assertEquals(1, xml.parsed.get());
+        Assert.assertEquals(1, json.parsed.get());
+
+        assertConvertFailed(() -> http.sync(mockUrl).get().getBody().toBean(User.class, "xml"));
+        Assert.assertEquals(2, xml.parsed.get());
+        Assert.assertEquals(1, json.parsed.get());
+
+        // 未知的类型依次尝试所有转换器
+        assertConvertFailed(() -> http.sync(mockUrl).get().getBody().toBean(User.class));
+        Assert.assertEquals(3, xml.parsed.get());
+        Assert.assertEquals(2, json.parsed.get());
+    }
+
+    private void assertConvertFailed(Runnable runnable) {
+        try {
+            runnable.run();
+            Assert.fail();
+        } catch (HttpException e) {
+            println(e.getMessage());
+        }
+    }
+
+}
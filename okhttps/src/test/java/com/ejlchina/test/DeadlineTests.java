@@ -0,0 +1,117 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.RetryPolicy;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试截止时间
+ */
+public class DeadlineTests extends BaseTest {
+
+    @Test
+    public void testSyncDeadline() {
+        HTTP http = HTTP.builder().build();
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        HttpResult result = http.sync(mockUrl)
+                .deadline(Duration.ofMillis(300))
+                .nothrow()
+                .get();
+        Assert.assertEquals(HttpResult.State.TIMEOUT, result.getState());
+        Assert.assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+
+    @Test
+    public void testPreprocDeadline() {
+        HTTP http = HTTP.builder()
+                .addPreprocessor(chain -> new Thread(() -> {
+                    sleep(2000);
+                    chain.proceed();
+                }).start())
+                .build();
+
+        long start = System.currentTimeMillis();
+        HttpResult result = http.async(mockUrl)
+                .deadline(Duration.ofMillis(300))
+                .nothrow()
+                .get()
+                .getResult();
+        Assert.assertEquals(HttpResult.State.TIMEOUT, result.getState());
+        Assert.assertTrue(System.currentTimeMillis() - start < 1500);
+        Assert.assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void testDeadlineHeader() throws Exception {
+        HTTP http = HTTP.builder().deadlineHeader("X-Request-Timeout").build();
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        Assert.assertEquals("OK", http.sync(mockUrl)
+                .deadline(Duration.ofSeconds(5))
+                .get().getBody().toString());
+        RecordedRequest request = server.takeRequest();
+        long remaining = Long.parseLong(request.getHeader("X-Request-Timeout"));
+        Assert.assertTrue(remaining > 4000 && remaining <= 5000);
+    }
+
+    @Test
+    public void testAsyncDeadlineInFlight() throws Exception {
+        HTTP http = HTTP.builder().build();
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        // 截止时间在 OkHttp 请求发出后到期
+        HttpResult result = http.async(mockUrl)
+                .deadline(Duration.ofMillis(300))
+                .requestFuture(HTTP.GET)
+                .get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(HttpResult.State.TIMEOUT, result.getState());
+        Assert.assertTrue(System.currentTimeMillis() - start < 1500);
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testDeadlineHeaderOnRetry() throws Exception {
+        HTTP http = HTTP.builder()
+                .deadlineHeader("X-Request-Timeout")
+                .retryPolicy(RetryPolicy.of(1))
+                .build();
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        Assert.assertEquals("OK", http.sync(mockUrl)
+                .deadline(Duration.ofSeconds(5))
+                .get().getBody().toString());
+        long first = Long.parseLong(server.takeRequest().getHeader("X-Request-Timeout"));
+        long second = Long.parseLong(server.takeRequest().getHeader("X-Request-Timeout"));
+        // 重试时携带的是重新计算的剩余时间
+        Assert.assertTrue(first - second >= 900);
+    }
+
+    @Test
+    public void testDeadlineHeaderCoalesce() throws Exception {
+        HTTP http = HTTP.builder()
+                .deadlineHeader("X-Request-Timeout")
+                .coalesce()
+                .build();
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+        HttpCall c1 = http.async(mockUrl).deadline(Duration.ofSeconds(5)).get();
+        sleep(50);
+        HttpCall c2 = http.async(mockUrl).deadline(Duration.ofSeconds(5)).get();
+        Assert.assertEquals("OK", c1.getResult().getBody().toString());
+        Assert.assertEquals("OK", c2.getResult().getBody().toString());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+}
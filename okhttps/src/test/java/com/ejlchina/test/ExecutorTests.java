@@ -3,6 +3,12 @@ package com.ejlchina.test;
 import com.ejlchina.okhttps.HTTP;
 import com.ejlchina.okhttps.HttpResult;
 import com.ejlchina.okhttps.Process;
+import com.ejlchina.okhttps.internal.HttpClient;
+import com.ejlchina.okhttps.internal.HttpException;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class ExecutorTests extends BaseTest {
@@ -35,5 +41,29 @@ public class ExecutorTests extends BaseTest {
         sleep(3000);
     }
 
+    @Test
+    public void testVirtualThreads() {
+        HTTP http;
+        try {
+            http = HTTP.builder()
+                    .config((OkHttpClient.Builder builder) -> {
+                        Dispatcher dispatcher = new Dispatcher();
+                        dispatcher.setMaxRequestsPerHost(20);
+                        builder.dispatcher(dispatcher);
+                    })
+                    .virtualThreads()
+                    .build();
+        } catch (HttpException e) {
+            // Java 21 以下版本不支持虚拟线程
+            println(e.getMessage());
+            return;
+        }
+        // 换用虚拟线程的调度器沿用原调度器的并发上限
+        Dispatcher dispatcher = ((HttpClient) http).okClient().dispatcher();
+        Assert.assertEquals(20, dispatcher.getMaxRequestsPerHost());
+        Assert.assertEquals(64, dispatcher.getMaxRequests());
+        server.enqueue(new MockResponse().setBody("OK"));
+        Assert.assertEquals("OK", http.async(mockUrl).get().getResult().getBody().toString());
+    }
 
 }
@@ -0,0 +1,103 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.MsgConvertor;
+import com.ejlchina.okhttps.OkHttps;
+import com.ejlchina.okhttps.internal.FormEncoder;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FormEncoderTests extends BaseTest {
+
+    public static class Query {
+
+        public String keyword = "a&b c";
+        private int page = 2;
+        private boolean desc = true;
+        private List<String> tags = Arrays.asList("x", "y");
+        private Date time = new Date(0);
+        private String empty;
+
+        public int getPage() {
+            return page;
+        }
+
+        public boolean isDesc() {
+            return desc;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public Date getTime() {
+            return time;
+        }
+
+        public String getEmpty() {
+            return empty;
+        }
+
+    }
+
+    static class Hidden {
+
+        public String getName() {
+            return "Jack";
+        }
+
+    }
+
+    @Test
+    public void testEncode() {
+        Map<String, String> params = new LinkedHashMap<>();
+        FormEncoder.encode(new Query(), "yyyy", params::put);
+        Assert.assertEquals(5, params.size());
+        Assert.assertEquals("a&b c", params.get("keyword"));
+        Assert.assertEquals("2", params.get("page"));
+        Assert.assertEquals("true", params.get("desc"));
+        Assert.assertEquals("x,y", params.get("tags"));
+        Assert.assertTrue(params.get("time").startsWith("19"));
+        Assert.assertFalse(params.containsKey("empty"));
+
+        params.clear();
+        FormEncoder.encode(new Hidden(), null, params::put);
+        Assert.assertEquals("Jack", params.get("name"));
+    }
+
+    @Test
+    public void testFormConvertor() {
+        MsgConvertor convertor = new MsgConvertor.FormConvertor(null);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", "张三");
+        map.put("q", "a=b&c");
+        byte[] data = convertor.serialize(map, StandardCharsets.UTF_8);
+        Assert.assertEquals("name=%E5%BC%A0%E4%B8%89&q=a%3Db%26c", new String(data, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testTaskParams() throws InterruptedException {
+        HTTP http = HTTP.builder().bodyType(OkHttps.FORM).build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        http.sync(mockUrl)
+                .addUrlPara(new Hidden())
+                .addBodyPara(new Query())
+                .post();
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("/?name=Jack", request.getPath());
+        String body = request.getBody().readUtf8();
+        Assert.assertTrue(body.contains("keyword=a%26b%20c"));
+        Assert.assertTrue(body.contains("page=2"));
+        Assert.assertTrue(body.contains("tags=x%2Cy"));
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.internal.HttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试 CompletableFuture 接口
+ */
+public class FutureTests extends BaseTest {
+
+    HTTP http = HTTP.builder().build();
+
+    @Test
+    public void testCombine() throws Exception {
+        server.enqueue(new MockResponse().setBody("Hello"));
+        server.enqueue(new MockResponse().setBody("OkHttps"));
+
+        CompletableFuture<String> f1 = http.async(mockUrl).getFuture()
+                .thenApply((HttpResult result) -> result.getBody().toString());
+        CompletableFuture<String> f2 = http.async(mockUrl).getFuture()
+                .thenApply((HttpResult result) -> result.getBody().toString());
+
+        String text = f1.thenCombine(f2, (String s1, String s2) -> s1.length() + s2.length())
+                .thenApply(String::valueOf)
+                .get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("12", text);
+    }
+
+    @Test
+    public void testCancel() {
+        server.enqueue(new MockResponse().setBody("OK")
+                .setHeadersDelay(1, TimeUnit.SECONDS));
+
+        CompletableFuture<HttpResult> future = http.async(mockUrl)
+                .tag("F")
+                .getFuture();
+        Assert.assertEquals(1, ((HttpClient) http).getTagTaskCount());
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isCancelled());
+        sleep(200);
+        Assert.assertEquals(0, ((HttpClient) http).getTagTaskCount());
+    }
+
+    @Test
+    public void testException() throws Exception {
+        HttpResult result = http.async("http://localhost:1").getFuture()
+                .get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(HttpResult.State.NETWORK_ERROR, result.getState());
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HedgePolicy;
+import com.ejlchina.okhttps.HttpResult;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 测试请求对冲
+ */
+public class HedgeTests extends BaseTest {
+
+    @Test
+    public void testHedge() {
+        AtomicReference<HedgePolicy.Hedge> hedge = new AtomicReference<>();
+        HTTP http = HTTP.builder()
+                .hedgePolicy(HedgePolicy.delay(100).budget(1))
+                .hedgeListener((task, data) -> {
+                    hedge.set(data);
+                    return true;
+                })
+                .build();
+        server.enqueue(new MockResponse().setBody("slow")
+                .setHeadersDelay(2, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("fast"));
+
+        long start = System.currentTimeMillis();
+        HttpResult result = http.sync(mockUrl).get();
+        Assert.assertEquals("fast", result.getBody().toString());
+        Assert.assertTrue(System.currentTimeMillis() - start < 1500);
+        sleep(100);
+        Assert.assertEquals(1, hedge.get().getHedges());
+        Assert.assertEquals(1, hedge.get().getHedgeWins());
+    }
+
+    @Test
+    public void testBudget() {
+        HTTP http = HTTP.builder()
+                .hedgePolicy(HedgePolicy.delay(100).budget(0))
+                .build();
+        server.enqueue(new MockResponse().setBody("slow")
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("fast"));
+
+        HttpResult result = http.async(mockUrl).get().getResult();
+        Assert.assertEquals("slow", result.getBody().toString());
+        // 非幂等请求不对冲
+        result = http.sync(mockUrl).hedge(HedgePolicy.delay(0).budget(1)).post();
+        Assert.assertEquals("fast", result.getBody().toString());
+    }
+
+    @Test
+    public void testPercentile() {
+        HedgePolicy policy = HedgePolicy.percentile(0.9).fallbackDelay(50);
+        Assert.assertEquals(50, policy.onRequest("a"));
+        for (int i = 0; i < 1000; i++) {
+            policy.onResponse("a", 10, false);
+        }
+        Assert.assertEquals(10, policy.onRequest("a"));
+        // 样本窗口循环覆盖，只保留最近的样本
+        for (int i = 0; i < 128; i++) {
+            policy.onLatency("a", 200);
+        }
+        Assert.assertEquals(200, policy.onRequest("a"));
+    }
+
+}
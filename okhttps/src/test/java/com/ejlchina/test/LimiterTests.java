@@ -0,0 +1,77 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.ConcurrencyLimiter;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.HttpResult;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 测试并发限制器
+ */
+public class LimiterTests extends BaseTest {
+
+    @Test
+    public void testQueueAndReject() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter()
+                .limit(1, 1, 1)
+                .queue(1, 0);
+        HTTP http = HTTP.builder().concurrencyLimiter(limiter).build();
+        server.enqueue(new MockResponse().setBody("A").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("B"));
+
+        HttpCall c1 = http.async(mockUrl).get();
+        HttpCall c2 = http.async(mockUrl).get();
+        HttpCall c3 = http.async(mockUrl).nothrow().get();
+        Assert.assertEquals(HttpResult.State.REJECTED, c3.getResult().getState());
+        Assert.assertEquals(1, limiter.getQueued("localhost"));
+        Assert.assertEquals("A", c1.getResult().getBody().toString());
+        Assert.assertEquals("B", c2.getResult().getBody().toString());
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testQueueTimeout() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter()
+                .limit(1, 1, 1)
+                .queue(10, 100);
+        HTTP http = HTTP.builder().concurrencyLimiter(limiter).build();
+        server.enqueue(new MockResponse().setBody("A").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        http.async(mockUrl).get();
+        HttpResult result = http.sync(mockUrl).nothrow().get();
+        Assert.assertEquals(HttpResult.State.REJECTED, result.getState());
+        // 超时拒绝的回调不在计时器线程上执行
+        AtomicReference<String> thread = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        http.async(mockUrl)
+                .setOnException(e -> {
+                    thread.set(Thread.currentThread().getName());
+                    latch.countDown();
+                })
+                .get();
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertNotEquals("OkHttps Timer", thread.get());
+    }
+
+    @Test
+    public void testBackoff() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter()
+                .limit(10, 1, 20)
+                .backoffRatio(0.5);
+        HTTP http = HTTP.builder().concurrencyLimiter(limiter).build();
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        Assert.assertEquals(503, http.sync(mockUrl).get().getStatus());
+        Assert.assertEquals(5, limiter.getLimit("localhost"));
+        Assert.assertEquals(0, limiter.getInflight("localhost"));
+    }
+
+}
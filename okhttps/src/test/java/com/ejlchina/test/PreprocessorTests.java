@@ -1,9 +1,21 @@
 package com.ejlchina.test;
 
 import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.HttpResult;
 import com.ejlchina.okhttps.Preprocessor;
+import com.ejlchina.okhttps.internal.HttpClient.SerialPreprocessor;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class PreprocessorTests extends BaseTest {
 
 
@@ -57,4 +69,74 @@ public class PreprocessorTests extends BaseTest {
         sleep(10000);
     }
 
+    @Test
+    public void testCoalesceSerialPreprocessor() {
+        AtomicInteger count = new AtomicInteger();
+        SerialPreprocessor preprocessor = new SerialPreprocessor((Preprocessor.PreChain chain) -> {
+            count.incrementAndGet();
+            new Thread(() -> {
+                sleep(300);
+                chain.proceed();
+            }).start();
+        }).coalesce(true);
+        HTTP http = HTTP.builder()
+                .addSerialPreprocessor(preprocessor)
+                .build();
+        List<HttpCall> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setBody("OK"));
+            calls.add(http.async(mockUrl).get());
+        }
+        Assert.assertEquals(4, preprocessor.queueSize());
+        for (HttpCall call : calls) {
+            Assert.assertEquals(HttpResult.State.RESPONSED, call.getResult().getState());
+        }
+        Assert.assertEquals(1, count.get());
+        Assert.assertEquals(0, preprocessor.queueSize());
+        Assert.assertEquals(4, preprocessor.waitedCount());
+    }
+
+    @Test
+    public void testSerialPreprocessorTimeout() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        HTTP http = HTTP.builder()
+                .addSerialPreprocessor(new SerialPreprocessor((Preprocessor.PreChain chain) -> {
+                    // 从不调用 chain.proceed()
+                    threads.add(Thread.currentThread().getName());
+                }).timeout(200, SerialPreprocessor.TimeoutPolicy.BYPASS))
+                .build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+        HttpCall call = http.async(mockUrl).get();
+        Assert.assertEquals("OK", http.sync(mockUrl).get().getBody().toString());
+        Assert.assertEquals(HttpResult.State.RESPONSED, call.getResult().getState());
+        // 超时后放行的任务不在计时器线程上执行预处理
+        Assert.assertEquals(2, threads.size());
+        Assert.assertNotEquals("OkHttps Timer", threads.get(1));
+
+        http = HTTP.builder()
+                .addSerialPreprocessor(new SerialPreprocessor((Preprocessor.PreChain chain) -> {})
+                        .timeout(200, SerialPreprocessor.TimeoutPolicy.CANCEL))
+                .build();
+        Assert.assertEquals(HttpResult.State.CANCELED, http.sync(mockUrl).get().getState());
+    }
+
+    @Test
+    public void testAsyncPreprocessor() throws InterruptedException {
+        HTTP http = HTTP.builder()
+                .addAsyncPreprocessor((Preprocessor.PreChain chain) -> CompletableFuture
+                        .supplyAsync(() -> "token")
+                        .thenAccept((String token) -> chain.getTask().addHeader("Token", token)))
+                .build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        Assert.assertEquals("OK", http.sync(mockUrl).get().getBody().toString());
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("token", request.getHeader("Token"));
+
+        http = HTTP.builder()
+                .addAsyncPreprocessor((Preprocessor.PreChain chain) -> new CompletableFuture<>(), 200)
+                .build();
+        Assert.assertEquals(HttpResult.State.CANCELED, http.async(mockUrl).get().getResult().getState());
+    }
+
 }
@@ -0,0 +1,89 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.ConcurrencyLimiter;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.PriorityScheduler;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试优先级调度
+ */
+public class PriorityTests extends BaseTest {
+
+    @Test
+    public void testPriority() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1);
+        HTTP http = HTTP.builder().priorityScheduler(scheduler).build();
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        HttpCall c0 = http.async(mockUrl + "/first").get();
+        HttpCall c1 = http.async(mockUrl + "/bulk").get();
+        HttpCall c2 = http.async(mockUrl + "/interactive").priority(10).get();
+        Assert.assertEquals(2, scheduler.getQueued());
+        c0.getResult();
+        c1.getResult();
+        c2.getResult();
+        Assert.assertEquals("/first", server.takeRequest().getPath());
+        Assert.assertEquals("/interactive", server.takeRequest().getPath());
+        Assert.assertEquals("/bulk", server.takeRequest().getPath());
+
+        PriorityScheduler.Stats stats = scheduler.getStats(10);
+        Assert.assertEquals(1, stats.getAdmitted());
+        Assert.assertTrue(stats.getMaxWaitMillis() >= 200);
+        println(scheduler.getStats());
+    }
+
+    @Test
+    public void testAging() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1).agingMillis(50);
+        HTTP http = HTTP.builder().priorityScheduler(scheduler).build();
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        HttpCall c0 = http.async(mockUrl + "/first").get();
+        HttpCall c1 = http.async(mockUrl + "/old").get();
+        sleep(200);
+        // 低优先级的请求已等待了 4 个老化周期
+        HttpCall c2 = http.async(mockUrl + "/new").priority(2).get();
+        c0.getResult();
+        c1.getResult();
+        c2.getResult();
+        server.takeRequest();
+        Assert.assertEquals("/old", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void testHostQueueKeepsNoSlot() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(2);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter().limit(1, 1, 1);
+        HTTP http = HTTP.builder().priorityScheduler(scheduler).concurrencyLimiter(limiter).build();
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        String otherUrl = "http://127.0.0.1:" + server.getPort();
+        HttpCall c0 = http.async(mockUrl + "/slow").get();
+        HttpCall c1 = http.async(mockUrl + "/queued").get();
+        sleep(100);
+        // 在主机队列中等待的请求不占用全局名额，其它主机的请求可以立即执行
+        Assert.assertEquals(1, limiter.getQueued(server.getHostName()));
+        Assert.assertEquals(1, scheduler.getInflight());
+        long start = System.currentTimeMillis();
+        Assert.assertEquals("OK", http.async(otherUrl + "/other").get().getResult().getBody().toString());
+        Assert.assertTrue(System.currentTimeMillis() - start < 300);
+        c0.getResult();
+        c1.getResult();
+        Assert.assertEquals("/slow", server.takeRequest().getPath());
+        Assert.assertEquals("/other", server.takeRequest().getPath());
+        Assert.assertEquals("/queued", server.takeRequest().getPath());
+    }
+
+}
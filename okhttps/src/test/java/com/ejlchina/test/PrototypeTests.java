@@ -0,0 +1,86 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.OkHttps;
+import com.ejlchina.okhttps.RequestPrototype;
+import com.ejlchina.okhttps.internal.HttpClient;
+import com.ejlchina.okhttps.internal.HttpException;
+import com.ejlchina.okhttps.internal.SyncHttpTask;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrototypeTests extends BaseTest {
+
+    HTTP http = HTTP.builder().baseUrl(mockUrl).build();
+
+    @Test
+    public void testPrototype() throws InterruptedException {
+        RequestPrototype proto = http.prototype("/users/{id}")
+                .addHeader("Token", "T1")
+                .addHeader("Accept", "text/plain")
+                .bodyType(OkHttps.FORM)
+                .freeze();
+        Assert.assertTrue(proto.isFrozen());
+        Assert.assertEquals(2, proto.getHeaders().size());
+
+        server.enqueue(new MockResponse().setBody("1"));
+        server.enqueue(new MockResponse().setBody("2"));
+        Assert.assertEquals("1", proto.sync()
+                .addPathPara("id", 1)
+                .addBodyPara("name", "Jack")
+                .post().getBody().toString());
+        Assert.assertEquals("2", proto.sync()
+                .addPathPara("id", 2)
+                .addHeader("Token", "T2")
+                .get().getBody().toString());
+
+        RecordedRequest r1 = server.takeRequest();
+        Assert.assertEquals("/users/1", r1.getPath());
+        Assert.assertEquals("T1", r1.getHeader("Token"));
+        Assert.assertEquals("name=Jack", r1.getBody().readUtf8());
+        RecordedRequest r2 = server.takeRequest();
+        Assert.assertEquals("/users/2", r2.getPath());
+        // 任务中的同名请求头覆盖原型
+        Assert.assertEquals(1, r2.getHeaders().values("Token").size());
+        Assert.assertEquals("T2", r2.getHeader("Token"));
+        Assert.assertEquals("text/plain", r2.getHeader("Accept"));
+    }
+
+    @Test
+    public void testMediaType() throws InterruptedException {
+        RequestPrototype proto = http.prototype("/echo").bodyType(OkHttps.JSON).freeze();
+        Assert.assertNotNull(proto.getMediaType());
+        server.enqueue(new MockResponse().setBody("OK"));
+        proto.sync().setBodyPara("{\"a\":1}").post();
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals(proto.getMediaType().toString(), request.getHeader("Content-Type"));
+        Assert.assertEquals("{\"a\":1}", request.getBody().readUtf8());
+    }
+
+    @Test
+    public void testFrozen() {
+        RequestPrototype proto = http.prototype("/users").freeze();
+        try {
+            proto.addHeader("A", "B");
+            Assert.fail();
+        } catch (HttpException e) {
+            Assert.assertTrue(proto.getHeaders().size() == 0);
+        }
+    }
+
+    @Test
+    public void testConstructUnfrozen() throws InterruptedException {
+        RequestPrototype proto = http.prototype("/users/{id}").addHeader("Token", "T1");
+        server.enqueue(new MockResponse().setBody("OK"));
+        // 直接用未冻结的原型构造任务时自动冻结
+        SyncHttpTask task = new SyncHttpTask((HttpClient) http, proto);
+        Assert.assertTrue(proto.isFrozen());
+        Assert.assertEquals("OK", task.addPathPara("id", 1).get().getBody().toString());
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("/users/1", request.getPath());
+        Assert.assertEquals("T1", request.getHeader("Token"));
+    }
+
+}
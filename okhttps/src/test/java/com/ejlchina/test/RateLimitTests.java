@@ -0,0 +1,82 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.RateLimiter;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 测试速率限制
+ */
+public class RateLimitTests extends BaseTest {
+
+    @Test
+    public void testPerHost() {
+        HTTP http = HTTP.builder()
+                .addRateLimiter(RateLimiter.perHost(10))
+                .build();
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody("OK"));
+        }
+        long start = System.currentTimeMillis();
+        HttpCall c1 = http.async(mockUrl).get();
+        HttpCall c2 = http.async(mockUrl).get();
+        HttpCall c3 = http.async(mockUrl).get();
+        Assert.assertEquals("OK", c1.getResult().getBody().toString());
+        Assert.assertEquals("OK", c2.getResult().getBody().toString());
+        Assert.assertEquals("OK", c3.getResult().getBody().toString());
+        Assert.assertTrue(System.currentTimeMillis() - start >= 180);
+    }
+
+    @Test
+    public void testByTag() {
+        HTTP http = HTTP.builder()
+                .addRateLimiter(RateLimiter.byTag("api", 1).maxWaitMillis(0))
+                .build();
+        server.enqueue(new MockResponse().setBody("A"));
+        server.enqueue(new MockResponse().setBody("B"));
+
+        Assert.assertEquals("A", http.sync(mockUrl).tag("x.api1").get().getBody().toString());
+        HttpResult result = http.sync(mockUrl).tag("api2").nothrow().get();
+        Assert.assertEquals(HttpResult.State.REJECTED, result.getState());
+        // 不匹配的标签不受限
+        Assert.assertEquals("B", http.sync(mockUrl).tag("other").get().getBody().toString());
+    }
+
+    @Test
+    public void testRetryAfter() {
+        HTTP http = HTTP.builder()
+                .addRateLimiter(RateLimiter.global(100).maxWaitMillis(500))
+                .build();
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "2"));
+
+        Assert.assertEquals(429, http.sync(mockUrl).get().getStatus());
+        HttpResult result = http.sync(mockUrl).nothrow().get();
+        Assert.assertEquals(HttpResult.State.REJECTED, result.getState());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testCancelRefund() {
+        HTTP http = HTTP.builder()
+                .addRateLimiter(RateLimiter.perHost(2))
+                .build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+        long start = System.currentTimeMillis();
+        HttpCall c1 = http.async(mockUrl).get();
+        HttpCall c2 = http.async(mockUrl).get();
+        HttpCall c3 = http.async(mockUrl).get();
+        // 等待中的请求被取消后归还令牌，后续请求不必等待它们的份额
+        Assert.assertTrue(c2.cancel());
+        Assert.assertTrue(c3.cancel());
+        Assert.assertEquals("OK", c1.getResult().getBody().toString());
+        Assert.assertEquals("OK", http.sync(mockUrl).get().getBody().toString());
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.RetryPolicy;
+import okhttp3.internal.http.HttpDate;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+
+/**
+ * 测试请求重试
+ */
+public class RetryTests extends BaseTest {
+
+    HTTP http = HTTP.builder()
+            .retryPolicy(RetryPolicy.of(2).backoff(10, 50))
+            .build();
+
+    @Test
+    public void testRetryOnStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        HttpResult result = http.async(mockUrl).get().getResult();
+        Assert.assertEquals(200, result.getStatus());
+        Assert.assertEquals("OK", result.getBody().toString());
+        Assert.assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testReplayBody() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        HttpResult result = http.sync(mockUrl)
+                .setBodyPara("Hello".getBytes())
+                .put();
+        Assert.assertEquals("OK", result.getBody().toString());
+        Assert.assertEquals("Hello", server.takeRequest().getBody().readUtf8());
+        Assert.assertEquals("Hello", server.takeRequest().getBody().readUtf8());
+    }
+
+    @Test
+    public void testNotIdempotent() {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        HttpResult result = http.sync(mockUrl).post();
+        Assert.assertEquals(503, result.getStatus());
+        result = http.sync(mockUrl).retry(null).get();
+        Assert.assertEquals(200, result.getStatus());
+    }
+
+    @Test
+    public void testBudget() {
+        HTTP http = HTTP.builder()
+                .retryPolicy(RetryPolicy.of(5).backoff(10, 50).budget(0, 1))
+                .build();
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        // 只有 1 个令牌，所以只重试 1 次
+        HttpResult result = http.sync(mockUrl).get();
+        Assert.assertEquals(503, result.getStatus());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testNetworkError() {
+        long start = System.currentTimeMillis();
+        HttpResult result = http.sync("http://localhost:1").nothrow().get();
+        Assert.assertEquals(HttpResult.State.NETWORK_ERROR, result.getState());
+        println("耗时：" + (System.currentTimeMillis() - start));
+    }
+
+    @Test
+    public void testRetryAfterDate() {
+        // HTTP 日期格式的 Retry-After，精确到秒，至少等待一秒多
+        String date = HttpDate.format(new Date(System.currentTimeMillis() + 2000));
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", date));
+        server.enqueue(new MockResponse().setBody("OK"));
+
+        long start = System.currentTimeMillis();
+        HttpResult result = http.sync(mockUrl).get();
+        Assert.assertEquals("OK", result.getBody().toString());
+        Assert.assertTrue(System.currentTimeMillis() - start >= 900);
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+}
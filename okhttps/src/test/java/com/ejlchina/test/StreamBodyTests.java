@@ -0,0 +1,166 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.Array;
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.Mapper;
+import com.ejlchina.okhttps.MsgConvertor;
+import com.ejlchina.okhttps.RetryPolicy;
+import com.ejlchina.okhttps.SerializeException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StreamBodyTests extends BaseTest {
+
+    static class TextConvertor implements MsgConvertor {
+
+        final boolean streaming;
+        final AtomicInteger buffered = new AtomicInteger();
+        final AtomicInteger streamed = new AtomicInteger();
+
+        TextConvertor(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        @Override
+        public String mediaType() {
+            return "text/plain";
+        }
+
+        @Override
+        public Mapper toMapper(InputStream in, Charset charset) {
+            return null;
+        }
+
+        @Override
+        public Array toArray(InputStream in, Charset charset) {
+            return null;
+        }
+
+        @Override
+        public byte[] serialize(Object object, Charset charset) {
+            return serialize(object, null, charset);
+        }
+
+        @Override
+        public byte[] serialize(Object object, String dateFormat, Charset charset) {
+            buffered.incrementAndGet();
+            return object.toString().getBytes(charset);
+        }
+
+        @Override
+        public void serialize(Object object, String dateFormat, Charset charset, OutputStream out) throws IOException {
+            streamed.incrementAndGet();
+            out.write(object.toString().getBytes(charset));
+            // 转换器误关闭输出流也不应影响请求
+            out.close();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return streaming;
+        }
+
+        @Override
+        public <T> T toBean(Class<T> type, InputStream in, Charset charset) {
+            return null;
+        }
+
+        @Override
+        public <T> List<T> toList(Class<T> type, InputStream in, Charset charset) {
+            return null;
+        }
+
+    }
+
+    @Test
+    public void testStreaming() throws InterruptedException {
+        TextConvertor convertor = new TextConvertor(true);
+        HTTP http = HTTP.builder().addMsgConvertor(convertor).bodyType("text").build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("0123456789");
+        }
+        String body = sb.toString();
+        Assert.assertEquals("OK", http.sync(mockUrl).setBodyPara(new StringBuilder(body))
+                .streamBody().post().getBody().toString());
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals(body, request.getBody().readUtf8());
+        Assert.assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        Assert.assertTrue(request.getHeader("Content-Type").startsWith("text/plain"));
+        Assert.assertEquals(1, convertor.streamed.get());
+        Assert.assertEquals(0, convertor.buffered.get());
+    }
+
+    @Test
+    public void testBufferedFallback() throws InterruptedException {
+        TextConvertor convertor = new TextConvertor(false);
+        HTTP http = HTTP.builder().addMsgConvertor(convertor).bodyType("text").build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        http.sync(mockUrl).setBodyPara(new StringBuilder("Hello")).streamBody().post();
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("Hello", request.getBody().readUtf8());
+        Assert.assertEquals("5", request.getHeader("Content-Length"));
+        Assert.assertEquals(0, convertor.streamed.get());
+        Assert.assertEquals(1, convertor.buffered.get());
+    }
+
+    @Test
+    public void testProcessUsesBuffer() throws InterruptedException {
+        TextConvertor convertor = new TextConvertor(true);
+        HTTP http = HTTP.builder().addMsgConvertor(convertor).bodyType("text").build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        http.sync(mockUrl).setBodyPara(new StringBuilder("Hello"))
+                .streamBody()
+                .setOnProcess(process -> {})
+                .post();
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("5", request.getHeader("Content-Length"));
+        Assert.assertEquals(1, convertor.buffered.get());
+    }
+
+    @Test
+    public void testBufferedByDefault() throws InterruptedException {
+        TextConvertor convertor = new TextConvertor(true);
+        HTTP http = HTTP.builder().addMsgConvertor(convertor).bodyType("text").build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        http.sync(mockUrl).setBodyPara(new StringBuilder("Hello")).post();
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("5", request.getHeader("Content-Length"));
+        Assert.assertNull(request.getHeader("Transfer-Encoding"));
+        Assert.assertEquals(0, convertor.streamed.get());
+        Assert.assertEquals(1, convertor.buffered.get());
+    }
+
+    @Test
+    public void testSerializeFailureNotRetried() {
+        TextConvertor convertor = new TextConvertor(true) {
+            @Override
+            public void serialize(Object object, String dateFormat, Charset charset, OutputStream out) throws IOException {
+                streamed.incrementAndGet();
+                throw new IllegalStateException("bad bean");
+            }
+        };
+        HTTP http = HTTP.builder()
+                .addMsgConvertor(convertor)
+                .bodyType("text")
+                .retryPolicy(RetryPolicy.of(3).backoff(10, 50).retryOn(HttpResult.State.EXCEPTION))
+                .build();
+        HttpResult result = http.sync(mockUrl).setBodyPara(new StringBuilder("Hello"))
+                .streamBody().nothrow().put();
+        Assert.assertEquals(HttpResult.State.EXCEPTION, result.getState());
+        Assert.assertTrue(result.getError() instanceof SerializeException);
+        Assert.assertEquals(1, convertor.streamed.get());
+    }
+
+}
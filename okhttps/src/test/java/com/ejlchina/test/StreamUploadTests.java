@@ -0,0 +1,138 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpCall;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.Process;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class StreamUploadTests extends BaseTest {
+
+    HTTP http = HTTP.builder().build();
+
+    static byte[] content(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        return data;
+    }
+
+    @Test
+    public void testInputStream() throws InterruptedException {
+        byte[] data = content(100000);
+        server.enqueue(new MockResponse().setBody("OK"));
+        HttpResult result = http.sync(mockUrl)
+                .addBodyPara("name", "Jack")
+                .addFilePara("file", "txt", "a.txt", new ByteArrayInputStream(data))
+                .post();
+        Assert.assertEquals("OK", result.getBody().toString());
+        RecordedRequest request = server.takeRequest();
+        Assert.assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+        String body = request.getBody().readUtf8();
+        Assert.assertTrue(body.contains("filename=\"a.txt\""));
+        Assert.assertTrue(body.contains(new String(data, StandardCharsets.UTF_8)));
+        Assert.assertTrue(body.contains("Jack"));
+    }
+
+    @Test
+    public void testKnownLength() throws InterruptedException, IOException {
+        byte[] data = content(5000);
+        Path path = Files.createTempFile("okhttps", ".txt");
+        Files.write(path, data);
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+        try {
+            http.sync(mockUrl).addFilePara("file", path).post();
+            RecordedRequest request = server.takeRequest();
+            Assert.assertNotNull(request.getHeader("Content-Length"));
+            Assert.assertTrue(request.getBody().readUtf8().contains(new String(data, StandardCharsets.UTF_8)));
+
+            http.sync(mockUrl)
+                    .addFilePara("file", "txt", "b.txt", Channels.newChannel(new ByteArrayInputStream(data)), data.length)
+                    .post();
+            request = server.takeRequest();
+            Assert.assertNotNull(request.getHeader("Content-Length"));
+            Assert.assertTrue(request.getBody().readUtf8().contains("filename=\"b.txt\""));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testProcess() throws InterruptedException {
+        byte[] data = content(100000);
+        server.enqueue(new MockResponse().setBody("OK"));
+        List<Process> processes = new CopyOnWriteArrayList<>();
+        http.sync(mockUrl)
+                .addFilePara("file", "txt", "a.txt", new ByteArrayInputStream(data))
+                .stepBytes(10000)
+                .setOnProcess(processes::add)
+                .post();
+        server.takeRequest();
+        for (int i = 0; i < 20 && (processes.isEmpty() || !processes.get(processes.size() - 1).isDone()); i++) {
+            sleep(50);
+        }
+        Assert.assertTrue(processes.size() > 2);
+        Process last = processes.get(processes.size() - 1);
+        Assert.assertTrue(last.isDone());
+        Assert.assertTrue(last.getDoneBytes() > data.length);
+        Assert.assertEquals(last.getDoneBytes(), last.getTotalBytes());
+    }
+
+    static class ClosingStream extends ByteArrayInputStream {
+
+        volatile boolean closed = false;
+
+        ClosingStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+    @Test
+    public void testCloseOnFailure() {
+        // 连接失败，输入流未被写出
+        ClosingStream input = new ClosingStream(content(100));
+        HttpResult result = http.sync("http://localhost:1")
+                .nothrow()
+                .addFilePara("file", "txt", "a.txt", input)
+                .post();
+        Assert.assertEquals(HttpResult.State.NETWORK_ERROR, result.getState());
+        Assert.assertTrue(input.closed);
+    }
+
+    @Test
+    public void testCloseOnCancel() {
+        server.enqueue(new MockResponse().setBody("OK").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        ClosingStream input = new ClosingStream(content(100));
+        HttpCall call = http.async(mockUrl)
+                .addFilePara("file", "txt", "a.txt", input)
+                .post();
+        Assert.assertTrue(call.cancel());
+        Assert.assertEquals(HttpResult.State.CANCELED, call.getResult().getState());
+        for (int i = 0; i < 20 && !input.closed; i++) {
+            sleep(50);
+        }
+        Assert.assertTrue(input.closed);
+    }
+
+}
@@ -3,10 +3,14 @@ package com.ejlchina.test;
 import com.ejlchina.okhttps.HTTP;
 import com.ejlchina.okhttps.HttpResult;
 import com.ejlchina.okhttps.internal.HttpClient;
+import com.ejlchina.okhttps.internal.TagRegistry;
 import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TagTests extends BaseTest {
 
@@ -39,5 +43,43 @@ public class TagTests extends BaseTest {
 
     }
 
+    @Test
+    public void testCancelByTag() {
+        HttpClient http = (HttpClient) HTTP.builder().build();
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setBody("OK")
+                    .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        }
+        http.async(mockUrl).tag("A").get();
+        http.async(mockUrl).tag("A").tag("B").get();
+        http.async(mockUrl).tag("B.C").get();
+        http.async(mockUrl).tag("C").get();
+        Assert.assertEquals(4, http.getTagTaskCount());
+        Assert.assertEquals(2, http.cancel("B"));
+        Assert.assertEquals(2, http.getTagTaskCount());
+        Assert.assertEquals(0, http.cancel("D"));
+        for (int i = 0; i < 50 && http.getTagTaskCount() > 0; i++) {
+            sleep(100);
+        }
+        Assert.assertEquals(0, http.getTagTaskCount());
+    }
+
+    @Test
+    public void testCancelBySubstring() {
+        TagRegistry registry = new TagRegistry(0, null);
+        AtomicInteger canceled = new AtomicInteger();
+        for (String tag : new String[] {"user.list", "username", "xA.By", "order"}) {
+            registry.add(tag, () -> canceled.incrementAndGet() > 0, null);
+        }
+        // 与分段相等的直接命中，被更长的分段包含的也能找到
+        Assert.assertEquals(2, registry.cancel("user"));
+        // 跨越分段的标签
+        Assert.assertEquals(1, registry.cancel("A.B"));
+        Assert.assertEquals(0, registry.cancel("user"));
+        Assert.assertEquals(1, registry.size());
+        Assert.assertEquals(3, canceled.get());
+        registry.clear();
+        Assert.assertEquals(0, registry.size());
+    }
 
 }
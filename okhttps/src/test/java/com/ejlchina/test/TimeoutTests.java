@@ -0,0 +1,45 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.HttpResult;
+import com.ejlchina.okhttps.internal.HttpClient;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试单个任务的超时设置
+ */
+public class TimeoutTests extends BaseTest {
+
+    @Test
+    public void testReadTimeout() {
+        HTTP http = HTTP.builder().build();
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS));
+
+        HttpResult result = http.sync(mockUrl)
+                .readTimeout(Duration.ofMillis(200))
+                .nothrow()
+                .get();
+        Assert.assertEquals(HttpResult.State.TIMEOUT, result.getState());
+        // 其它任务不受影响
+        Assert.assertEquals("slow", http.async(mockUrl).get().getResult().getBody().toString());
+    }
+
+    @Test
+    public void testSharedResources() {
+        HttpClient http = (HttpClient) HTTP.builder().build();
+        OkHttpClient derived = http.okClient(1000, 2000, -1);
+        Assert.assertSame(derived, http.okClient(1000, 2000, -1));
+        Assert.assertSame(http.okClient().connectionPool(), derived.connectionPool());
+        Assert.assertSame(http.okClient().dispatcher(), derived.dispatcher());
+        Assert.assertEquals(2000, derived.readTimeoutMillis());
+        Assert.assertEquals(http.okClient().writeTimeoutMillis(), derived.writeTimeoutMillis());
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.internal.HashedWheelTimer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试时间轮定时器
+ */
+public class TimerTests extends BaseTest {
+
+    @Test
+    public void testOrder() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("Test Timer", 5, TimeUnit.MILLISECONDS, 8);
+        List<Integer> list = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        // 超过一圈（40 毫秒）的任务
+        timer.newTimeout(() -> { list.add(3); latch.countDown(); }, 150, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> { list.add(1); latch.countDown(); }, 10, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> { list.add(2); latch.countDown(); }, 60, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertEquals("[1, 2, 3]", list.toString());
+        Assert.assertEquals(0, timer.pendingTimeouts());
+        timer.stop();
+    }
+
+    @Test
+    public void testCancel() {
+        HashedWheelTimer timer = new HashedWheelTimer("Test Timer");
+        List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            timeouts.add(timer.newTimeout(() -> Assert.fail("已取消"), 10, TimeUnit.SECONDS));
+        }
+        for (HashedWheelTimer.Timeout timeout : timeouts) {
+            Assert.assertTrue(timeout.cancel());
+        }
+        Assert.assertFalse(timeouts.get(0).cancel());
+        for (int i = 0; i < 50 && timer.pendingTimeouts() > 0; i++) {
+            sleep(20);
+        }
+        Assert.assertEquals(0, timer.pendingTimeouts());
+        timer.stop();
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.ejlchina.test;
+
+import com.ejlchina.okhttps.HTTP;
+import com.ejlchina.okhttps.internal.HttpClient;
+import com.ejlchina.okhttps.internal.HttpException;
+import com.ejlchina.okhttps.internal.UrlTemplate;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class UrlTemplateTests extends BaseTest {
+
+    @Test
+    public void testBuild() {
+        UrlTemplate template = UrlTemplate.parse("http://api.demo.com/users/{id}/books/{bookId}?v=1");
+        Assert.assertEquals(2, template.getNames().size());
+        Map<String, String> pathParams = new HashMap<>();
+        pathParams.put("id", "a b/c");
+        pathParams.put("bookId", "中文");
+        HttpUrl url = template.build(pathParams, Collections.singletonMap("q", "x&y=z"));
+        Assert.assertEquals("/users/a%20b%2Fc/books/%E4%B8%AD%E6%96%87", url.encodedPath());
+        Assert.assertEquals("1", url.queryParameter("v"));
+        Assert.assertEquals("x&y=z", url.queryParameter("q"));
+        Assert.assertEquals(4, url.pathSize());
+    }
+
+    @Test
+    public void testStaticTemplate() {
+        UrlTemplate template = UrlTemplate.parse("ws://api.demo.com/chat");
+        Assert.assertTrue(template.getNames().isEmpty());
+        HttpUrl url = template.build(null, null);
+        Assert.assertSame(url, template.build(null, null));
+        Assert.assertEquals("/chat", url.encodedPath());
+        // 非参数名的花括号按字面处理
+        HttpUrl json = UrlTemplate.parse("http://api.demo.com/q?f={a:1}").build(null, null);
+        Assert.assertEquals("{a:1}", json.queryParameter("f"));
+    }
+
+    @Test
+    public void testMissingParam() {
+        UrlTemplate template = UrlTemplate.parse("http://api.demo.com/users/{id}");
+        try {
+            template.build(null, null);
+            Assert.fail();
+        } catch (HttpException e) {
+            Assert.assertTrue(e.getMessage().contains("id"));
+        }
+        try {
+            template.build(Collections.singletonMap("name", "Jack"), null);
+            Assert.fail();
+        } catch (HttpException e) {
+            Assert.assertTrue(e.getMessage().contains("name"));
+        }
+    }
+
+    @Test
+    public void testRequest() throws InterruptedException {
+        HttpClient http = (HttpClient) HTTP.builder().baseUrl(mockUrl).build();
+        server.enqueue(new MockResponse().setBody("OK"));
+        server.enqueue(new MockResponse().setBody("OK"));
+        for (int i = 0; i < 2; i++) {
+            String body = http.sync("/users/{id}")
+                    .addPathPara("id", "1 2")
+                    .addUrlPara("name", "Jack Ma")
+                    .get().getBody().toString();
+            Assert.assertEquals("OK", body);
+            RecordedRequest request = server.takeRequest();
+            Assert.assertEquals("/users/1%202?name=Jack%20Ma", request.getPath());
+        }
+        Assert.assertSame(http.urlTemplate(mockUrl + "/users/{id}"), http.urlTemplate(mockUrl + "/users/{id}"));
+    }
+
+    @Test
+    public void testCacheEviction() {
+        HttpClient http = (HttpClient) HTTP.builder().build();
+        UrlTemplate hot = http.urlTemplate("http://api.demo.com/users/{id}");
+        for (int i = 0; i < 2000; i++) {
+            http.urlTemplate("http://api.demo.com/users/" + i);
+            // 常用的模板不会被淘汰
+            Assert.assertSame(hot, http.urlTemplate("http://api.demo.com/users/{id}"));
+        }
+        // 缓存满后新的模板仍会被缓存
+        UrlTemplate last = http.urlTemplate("http://api.demo.com/users/1999");
+        Assert.assertSame(last, http.urlTemplate("http://api.demo.com/users/1999"));
+    }
+
+}